@@ -3,12 +3,14 @@ package com.example.usermanagement;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 用户管理系统主启动类
  */
 @SpringBootApplication
 @MapperScan("com.example.usermanagement.mapper")
+@EnableScheduling
 public class UserManagementApplication {
 
     public static void main(String[] args) {
@@ -2,48 +2,105 @@ package com.example.usermanagement.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * 数据库初始化器
- * 在应用启动时执行数据库表创建和初始数据插入
+ * 在应用启动时按版本号顺序执行db/migration下的V{版本}__{描述}.sql脚本；
+ * 已执行的版本记录在schema_migrations表中，之后启动不再重复执行，已发布的脚本不应再修改，变更需添加新版本。
+ * 脚本直接通过数据库驱动建立的连接执行，不经过连接池的Druid wall过滤器（它拒绝CREATE EXTENSION、
+ * CREATE INDEX CONCURRENTLY等DDL）；每条语句自动提交，不在事务中执行，因此脚本可以使用CONCURRENTLY
  */
 @Component
 public class DatabaseInitializer implements CommandLineRunner {
 
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private DataSourceProperties dataSourceProperties;
 
     @Override
     public void run(String... args) throws Exception {
         try {
-            // 读取并执行SQL脚本
-            ClassPathResource resource = new ClassPathResource("db/migration/V1__Create_tables.sql");
-            String sql = new BufferedReader(
-                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))
-                .lines()
-                .collect(Collectors.joining("\n"));
-
-            // 分割SQL语句并执行
-            String[] statements = sql.split(";");
-            for (String statement : statements) {
-                String trimmedStatement = statement.trim();
-                if (!trimmedStatement.isEmpty() && !trimmedStatement.startsWith("--")) {
-                    jdbcTemplate.execute(trimmedStatement);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSourceProperties.initializeDataSourceBuilder()
+                    .type(SimpleDriverDataSource.class)
+                    .build());
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                    "version INTEGER PRIMARY KEY, description VARCHAR(200) NOT NULL, " +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            Set<Integer> applied = new HashSet<>(
+                    jdbcTemplate.queryForList("SELECT version FROM schema_migrations", Integer.class));
+
+            for (Resource script : scripts()) {
+                Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+                matcher.matches();
+                int version = Integer.parseInt(matcher.group(1));
+                if (applied.contains(version)) {
+                    continue;
+                }
+                for (String statement : statements(script)) {
+                    jdbcTemplate.execute(statement);
                 }
+                jdbcTemplate.update("INSERT INTO schema_migrations (version, description) VALUES (?, ?)",
+                        version, matcher.group(2));
+                System.out.println("数据库脚本已执行: " + script.getFilename());
             }
-            
+
             System.out.println("数据库表初始化完成");
         } catch (Exception e) {
             System.err.println("数据库初始化失败: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 按版本号排序的迁移脚本
+     */
+    private List<Resource> scripts() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+                .getResources("classpath:db/migration/V*__*.sql");
+        return Arrays.stream(resources)
+                .filter(resource -> resource.getFilename() != null
+                        && SCRIPT_NAME.matcher(resource.getFilename()).matches())
+                .sorted(Comparator.comparingInt(resource -> {
+                    Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename());
+                    matcher.matches();
+                    return Integer.parseInt(matcher.group(1));
+                }))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 去掉注释行后按分号拆分语句
+     */
+    private static List<String> statements(Resource script) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8))) {
+            String sql = reader.lines()
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+            return Arrays.stream(sql.split(";"))
+                    .map(String::trim)
+                    .filter(statement -> !statement.isEmpty())
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.usermanagement.config;
+
+import com.example.usermanagement.metrics.ConnectionHoldTimeDataSource;
+import com.example.usermanagement.metrics.ServiceMethodTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+/**
+ * 监控指标配置
+ * 为服务方法打上调用标记，并统计数据库连接的占用时长
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 包装数据源，记录连接占用时长
+     */
+    @Bean
+    public static BeanPostProcessor connectionHoldTimeDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ConnectionHoldTimeDataSource)) {
+                    return new ConnectionHoldTimeDataSource((DataSource) bean, meterRegistryProvider);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 拦截所有@Service类的方法，记录当前所在的服务方法
+     * 优先级最高，保证事务拦截器获取连接时标记已经存在
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceMethodTrackingAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new AnnotationMatchingPointcut(Service.class, true), new ServiceMethodTracker());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -3,9 +3,13 @@ package com.example.usermanagement.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Properties;
+
 /**
  * MyBatis-Plus配置类
  */
@@ -23,4 +27,18 @@ public class MyBatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.POSTGRE_SQL));
         return interceptor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 数据库标识
+     * 供动态SQL通过_databaseId区分PostgreSQL与测试使用的H2
+     */
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        Properties properties = new Properties();
+        properties.setProperty("PostgreSQL", "postgresql");
+        properties.setProperty("H2", "h2");
+        VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+        provider.setProperties(properties);
+        return provider;
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.usermanagement.config;
 
+import com.example.usermanagement.security.AdaptiveBCryptPasswordEncoder;
 import com.example.usermanagement.security.JwtAuthenticationFilter;
 import com.example.usermanagement.security.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -12,9 +15,9 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -31,12 +34,28 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${auth.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${auth.bcrypt.target-millis:250}")
+    private long bcryptTargetMillis;
+
+    @Value("${auth.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${auth.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
     /**
      * 密码编码器
+     * 未固定强度时按目标耗时在启动时测算
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        if (bcryptStrength > 0) {
+            return new AdaptiveBCryptPasswordEncoder(bcryptStrength);
+        }
+        return AdaptiveBCryptPasswordEncoder.calibrated(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
     }
 
     /**
@@ -47,6 +66,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // 登录成功后按当前强度重新哈希密码
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -71,10 +92,15 @@ public class SecurityConfig {
             .authorizeRequests()
                 // 允许匿名访问的路径
                 .antMatchers("/auth/**").permitAll()
-                .antMatchers("/actuator/**").permitAll()
+                .antMatchers("/actuator/health", "/actuator/info").permitAll()
+                // 指标包含接口耗时、缓存和索引规模等内部信息，仅管理员可见
+                .antMatchers("/actuator/**").hasRole("ADMIN")
                 // 其他请求需要认证
                 .anyRequest().authenticated()
             .and()
+            // 未认证的请求返回401，前端据此刷新令牌或跳转登录
+            .exceptionHandling().authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            .and()
             // 设置认证提供者
             .authenticationProvider(authenticationProvider())
             // 添加JWT过滤器
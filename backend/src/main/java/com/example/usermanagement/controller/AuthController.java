@@ -1,6 +1,7 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.*;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 认证控制器
@@ -20,32 +22,41 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     /**
      * 用户登录
+     * 在密码哈希线程池中异步执行
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> login(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            Map<String, Object> result = authService.login(loginRequest);
-            return ResponseEntity.ok(ApiResponse.success("登录成功", result));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                .body(ApiResponse.error(e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> login(@Valid @RequestBody LoginRequest loginRequest) {
+        return passwordHashingExecutor.submit(() -> {
+            try {
+                Map<String, Object> result = authService.login(loginRequest);
+                return ResponseEntity.ok(ApiResponse.success("登录成功", result));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+            }
+        });
     }
 
     /**
      * 用户注册
+     * 在密码哈希线程池中异步执行
      */
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<UserResponse>> register(@Valid @RequestBody RegisterRequest registerRequest) {
-        try {
-            UserResponse userResponse = authService.register(registerRequest);
-            return ResponseEntity.ok(ApiResponse.success("注册成功", userResponse));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                .body(ApiResponse.error(e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<ApiResponse<UserResponse>>> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        return passwordHashingExecutor.submit(() -> {
+            try {
+                UserResponse userResponse = authService.register(registerRequest);
+                return ResponseEntity.ok(ApiResponse.success("注册成功", userResponse));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+            }
+        });
     }
 
     /**
@@ -1,13 +1,23 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.ApiResponse;
+import com.example.usermanagement.dto.PageResponse;
+import com.example.usermanagement.dto.RoleAssignmentResult;
+import com.example.usermanagement.dto.RoleBatchDeleteResult;
+import com.example.usermanagement.dto.RoleMembershipOutcome;
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.dto.UserSummary;
 import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.service.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -24,11 +34,13 @@ public class RoleController {
 
     /**
      * 获取所有角色列表
+     * withUsage为true时每个角色附带用户数和是否可删除
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Role>>> getAllRoles() {
+    public ResponseEntity<ApiResponse<List<?>>> getAllRoles(
+            @RequestParam(defaultValue = "false") boolean withUsage) {
         try {
-            List<Role> roles = roleService.getAllRoles();
+            List<?> roles = withUsage ? roleService.getAllRolesWithUsage() : roleService.getAllRoles();
             return ResponseEntity.ok(ApiResponse.success(roles));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -107,9 +119,13 @@ public class RoleController {
 
     /**
      * 批量删除角色
+     * partial为false（默认）时任一角色不存在或正在使用则不删除任何角色；
+     * 为true时删除可删除的角色，结果中列出因正在使用而未删除的角色及其用户数
      */
     @DeleteMapping("/batch")
-    public ResponseEntity<ApiResponse<String>> batchDeleteRoles(@RequestBody Map<String, List<Long>> request) {
+    public ResponseEntity<ApiResponse<RoleBatchDeleteResult>> batchDeleteRoles(
+            @RequestBody Map<String, List<Long>> request,
+            @RequestParam(defaultValue = "false") boolean partial) {
         try {
             List<Long> roleIds = request.get("roleIds");
             if (roleIds == null || roleIds.isEmpty()) {
@@ -117,8 +133,9 @@ public class RoleController {
                     .body(ApiResponse.error("角色ID列表不能为空"));
             }
 
-            roleService.batchDeleteRoles(roleIds);
-            return ResponseEntity.ok(ApiResponse.success("角色批量删除成功"));
+            RoleBatchDeleteResult result = roleService.batchDeleteRoles(roleIds, partial);
+            boolean allDeleted = result.getBlockedRoles().isEmpty() && result.getNotFoundRoleIds().isEmpty();
+            return ResponseEntity.ok(ApiResponse.success(allDeleted ? "角色批量删除成功" : "部分角色未删除", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -127,15 +144,16 @@ public class RoleController {
 
     /**
      * 为用户分配角色
+     * 返回新增和移除的角色ID，角色未变化时两者都为空
      */
     @PutMapping("/assign/{userId}")
-    public ResponseEntity<ApiResponse<String>> assignRolesToUser(
+    public ResponseEntity<ApiResponse<RoleAssignmentResult>> assignRolesToUser(
             @PathVariable Long userId,
             @RequestBody Map<String, List<Long>> request) {
         try {
             List<Long> roleIds = request.get("roleIds");
-            roleService.assignRolesToUser(userId, roleIds);
-            return ResponseEntity.ok(ApiResponse.success("用户角色分配成功"));
+            RoleAssignmentResult result = roleService.assignRolesToUser(userId, roleIds);
+            return ResponseEntity.ok(ApiResponse.success("用户角色分配成功", result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -202,6 +220,84 @@ public class RoleController {
         }
     }
 
+    /**
+     * 按游标分页获取持有角色的用户摘要
+     * 首页不传cursor，之后传上一页返回的nextCursor
+     */
+    @GetMapping("/{roleId}/members")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<PageResponse<UserSummary>>> getRoleMembers(
+            @PathVariable Long roleId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            PageResponse<UserSummary> members = roleService.getRoleMembers(roleId, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(members));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量为用户添加角色
+     * 请求体为{"userIds": [...]}，返回每个用户的处理结果
+     */
+    @PostMapping("/{roleId}/members")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<Long, RoleMembershipOutcome>>> addUsersToRole(
+            @PathVariable Long roleId,
+            @RequestBody Map<String, List<Long>> request) {
+        try {
+            List<Long> userIds = request.get("userIds");
+            if (userIds == null || userIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("用户ID列表不能为空"));
+            }
+            Map<Long, RoleMembershipOutcome> outcomes = roleService.addUsersToRole(roleId, userIds);
+            return ResponseEntity.ok(ApiResponse.success("角色成员添加完成", outcomes));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量移除用户的角色
+     * 请求体为{"userIds": [...]}，返回每个用户的处理结果
+     */
+    @DeleteMapping("/{roleId}/members")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<Long, RoleMembershipOutcome>>> removeUsersFromRole(
+            @PathVariable Long roleId,
+            @RequestBody Map<String, List<Long>> request) {
+        try {
+            List<Long> userIds = request.get("userIds");
+            if (userIds == null || userIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("用户ID列表不能为空"));
+            }
+            Map<Long, RoleMembershipOutcome> outcomes = roleService.removeUsersFromRole(roleId, userIds);
+            return ResponseEntity.ok(ApiResponse.success("角色成员移除完成", outcomes));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 以NDJSON流式获取持有角色的全部用户摘要，每行一个用户
+     * 开始写出前的参数错误由全局异常处理器返回
+     */
+    @GetMapping("/{roleId}/members/stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamRoleMembers(@PathVariable Long roleId) {
+        StreamingResponseBody body = roleService.streamRoleMembers(roleId);
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.valueOf(UserFileFormat.NDJSON.getMediaType()), StandardCharsets.UTF_8))
+            .body(body);
+    }
+
     /**
      * 检查角色是否可以删除
      */
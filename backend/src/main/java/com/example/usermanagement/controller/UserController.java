@@ -1,17 +1,28 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.*;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.service.UserImportService;
 import com.example.usermanagement.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * 用户管理控制器
@@ -24,6 +35,12 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserImportService userImportService;
+
     /**
      * 获取当前用户信息
      */
@@ -56,39 +73,88 @@ public class UserController {
 
     /**
      * 修改密码
+     * 在密码哈希线程池中异步执行
      */
     @PutMapping("/password")
-    public ResponseEntity<ApiResponse<String>> changePassword(
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> changePassword(
             @AuthenticationPrincipal UserPrincipal userPrincipal,
             @Valid @RequestBody ChangePasswordRequest request) {
-        try {
-            userService.changePassword(userPrincipal.getId(), request);
-            return ResponseEntity.ok(ApiResponse.success("密码修改成功"));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                .body(ApiResponse.error(e.getMessage()));
-        }
+        return passwordHashingExecutor.submit(() -> {
+            try {
+                userService.changePassword(userPrincipal.getId(), request);
+                return ResponseEntity.ok(ApiResponse.success("密码修改成功"));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+            }
+        });
     }
 
     /**
      * 获取用户列表（管理员功能）
+     * 传入cursor或count=none时使用游标分页，此时不能同时传入page参数；
+     * count可选exact（默认）、cached、estimated、none
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ApiResponse<PageResponse<UserResponse>>> getUserList(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Integer status,
-            @RequestParam(required = false) Long roleId) {
+            @RequestParam(required = false) Long roleId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "exact") String count) {
         try {
-            PageResponse<UserResponse> result = userService.getUserList(page, size, search, status, roleId);
+            CountStrategy countStrategy = CountStrategy.from(count);
+            boolean cursorMode = cursor != null || countStrategy == CountStrategy.NONE;
+            if (cursorMode && page != null) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("游标分页不支持page参数"));
+            }
+            PageResponse<UserResponse> result = cursorMode
+                    ? userService.getUserListByCursor(cursor, size, search, status, roleId, countStrategy)
+                    : userService.getUserList(page != null ? page : 0, size, search, status, roleId, countStrategy);
             return ResponseEntity.ok(ApiResponse.success(result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    /**
+     * 按ID批量获取用户详情（管理员功能）
+     * ids以逗号分隔，结果按传入顺序排列，不存在的用户不返回
+     */
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> getUsersByIds(@RequestParam List<Long> ids) {
+        return findUsers(ids);
+    }
+
+    /**
+     * 按ID批量获取用户详情（管理员功能）
+     * 请求体为{"ids": [...]}，适用于ID较多、不便放入URL的情况
+     */
+    @PostMapping("/lookup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> lookupUsers(@RequestBody Map<String, List<Long>> request) {
+        return findUsers(request.get("ids"));
+    }
+
+    private ResponseEntity<ApiResponse<List<UserResponse>>> findUsers(List<Long> ids) {
+        try {
+            if (ids == null || ids.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("用户ID列表不能为空"));
+            }
+            List<UserResponse> users = userService.lookupUsers(ids);
+            return ResponseEntity.ok(ApiResponse.success(users));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
     
     /**
      * 创建新用户（管理员功能）
@@ -149,26 +215,29 @@ public class UserController {
     
     /**
      * 重置用户密码（管理员功能）
+     * 在密码哈希线程池中异步执行
      */
     @PutMapping("/{id}/reset-password")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<String>> resetUserPassword(
+    public CompletableFuture<ResponseEntity<ApiResponse<String>>> resetUserPassword(
             @PathVariable Long id,
             @RequestBody Map<String, String> request,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
-        try {
-            String password = request.get("password");
-            if (password == null || password.trim().isEmpty()) {
+        String password = request.get("password");
+        if (password == null || password.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(ApiResponse.error("密码不能为空")));
+        }
+
+        return passwordHashingExecutor.submit(() -> {
+            try {
+                userService.resetUserPassword(id, password, userPrincipal.getId());
+                return ResponseEntity.ok(ApiResponse.success("密码重置成功"));
+            } catch (Exception e) {
                 return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("密码不能为空"));
+                    .body(ApiResponse.error(e.getMessage()));
             }
-
-            userService.resetUserPassword(id, password, userPrincipal.getId());
-            return ResponseEntity.ok(ApiResponse.success("密码重置成功"));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                .body(ApiResponse.error(e.getMessage()));
-        }
+        });
     }
 
     /**
@@ -188,20 +257,62 @@ public class UserController {
         }
     }
 
+    /**
+     * 导出用户（管理员功能）
+     * format可选csv（默认）、ndjson，筛选条件与用户列表相同；响应体边读边写。
+     * 开始写出前的参数错误由全局异常处理器返回
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) Long roleId) {
+        UserFileFormat fileFormat = UserFileFormat.from(format);
+        StreamingResponseBody body = userService.exportUsers(fileFormat, search, status, roleId);
+        return ResponseEntity.ok()
+            .contentType(new MediaType(MediaType.valueOf(fileFormat.getMediaType()), StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users." + fileFormat.name().toLowerCase(Locale.ROOT))
+                .build()
+                .toString())
+            .body(body);
+    }
+
+    /**
+     * 批量导入用户（管理员功能）
+     * 请求体为CSV（text/csv）或NDJSON（application/x-ndjson），流式读取；单条记录出错不影响其他记录，错误在结果中逐行列出，超过上限的只计入errorCount
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserImportResult>> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try {
+            UserImportResult result = userImportService.importUsers(body,
+                UserFileFormat.fromContentType(contentType));
+            return ResponseEntity.ok(ApiResponse.success("用户导入完成", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     /**
      * 批量更新用户状态（管理员功能）
      */
     @PutMapping("/batch/status")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<String>> batchUpdateUserStatus(
+    public ResponseEntity<ApiResponse<BatchUpdateResult>> batchUpdateUserStatus(
             @RequestBody Map<String, Object> request,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
         try {
-            @SuppressWarnings("unchecked")
-            List<Long> userIds = (List<Long>) request.get("userIds");
+            // JSON中的数字按大小反序列化为Integer或Long，统一转换为Long
+            List<?> rawUserIds = (List<?>) request.get("userIds");
             Integer status = (Integer) request.get("status");
 
-            if (userIds == null || userIds.isEmpty()) {
+            if (rawUserIds == null || rawUserIds.isEmpty()) {
                 return ResponseEntity.badRequest()
                     .body(ApiResponse.error("用户ID列表不能为空"));
             }
@@ -211,9 +322,12 @@ public class UserController {
                     .body(ApiResponse.error("状态参数不能为空"));
             }
 
-            userService.batchUpdateUserStatus(userIds, status, userPrincipal.getId());
+            List<Long> userIds = rawUserIds.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+            BatchUpdateResult result = userService.batchUpdateUserStatus(userIds, status, userPrincipal.getId());
             String message = status == 1 ? "用户批量启用成功" : "用户批量禁用成功";
-            return ResponseEntity.ok(ApiResponse.success(message));
+            return ResponseEntity.ok(ApiResponse.success(message, result));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error(e.getMessage()));
@@ -0,0 +1,38 @@
+package com.example.usermanagement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作结果DTO
+ */
+public class BatchUpdateResult {
+
+    private List<Long> updatedIds = new ArrayList<>();
+    private List<Long> notFoundIds = new ArrayList<>();
+
+    // 构造函数
+    public BatchUpdateResult() {}
+
+    public BatchUpdateResult(List<Long> updatedIds, List<Long> notFoundIds) {
+        this.updatedIds = updatedIds;
+        this.notFoundIds = notFoundIds;
+    }
+
+    // Getter和Setter方法
+    public List<Long> getUpdatedIds() {
+        return updatedIds;
+    }
+
+    public void setUpdatedIds(List<Long> updatedIds) {
+        this.updatedIds = updatedIds;
+    }
+
+    public List<Long> getNotFoundIds() {
+        return notFoundIds;
+    }
+
+    public void setNotFoundIds(List<Long> notFoundIds) {
+        this.notFoundIds = notFoundIds;
+    }
+}
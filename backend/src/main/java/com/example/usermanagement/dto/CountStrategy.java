@@ -0,0 +1,37 @@
+package com.example.usermanagement.dto;
+
+import com.example.usermanagement.exception.BusinessException;
+
+import java.util.Locale;
+
+/**
+ * 分页总数的统计方式
+ */
+public enum CountStrategy {
+
+    /** 精确计数 */
+    EXACT,
+
+    /** 按筛选条件短时间缓存的精确计数，可能略有滞后 */
+    CACHED,
+
+    /** 数据库执行计划估算的行数 */
+    ESTIMATED,
+
+    /** 不统计总数 */
+    NONE;
+
+    /**
+     * 解析请求参数，不区分大小写
+     */
+    public static CountStrategy from(String value) {
+        if (value != null) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                // 落到下方统一抛出业务异常
+            }
+        }
+        throw new BusinessException("INVALID_COUNT_STRATEGY", "不支持的计数方式: " + value);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.usermanagement.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 按日统计数量DTO
+ */
+public class DailyCount {
+
+    private LocalDate date;
+    private long count;
+
+    // 构造函数
+    public DailyCount() {}
+
+    public DailyCount(LocalDate date, long count) {
+        this.date = date;
+        this.count = count;
+    }
+
+    // Getter和Setter方法
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -4,8 +4,13 @@ import java.util.List;
 
 /**
  * 分页响应DTO
+ * 游标分页时currentPage无意义，未统计总数时totalElements和totalPages为-1；
+ * countStrategy表示totalElements是精确值、缓存值还是估算值
  */
 public class PageResponse<T> {
+
+    /** 未统计总数 */
+    public static final long TOTAL_UNKNOWN = -1L;
     
     private List<T> content;
     private long totalElements;
@@ -14,6 +19,8 @@ public class PageResponse<T> {
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;
+    private CountStrategy countStrategy;
 
     // 构造函数
     public PageResponse() {}
@@ -33,6 +40,23 @@ public class PageResponse<T> {
         return new PageResponse<>(content, totalElements, currentPage, pageSize);
     }
 
+    /**
+     * 游标分页结果
+     */
+    public static <T> PageResponse<T> ofCursor(List<T> content, long totalElements, int pageSize,
+                                               boolean hasPrevious, String nextCursor) {
+        PageResponse<T> response = new PageResponse<>();
+        response.content = content;
+        response.totalElements = totalElements;
+        response.totalPages = totalElements == TOTAL_UNKNOWN
+                ? (int) TOTAL_UNKNOWN : (int) Math.ceil((double) totalElements / pageSize);
+        response.pageSize = pageSize;
+        response.hasPrevious = hasPrevious;
+        response.hasNext = nextCursor != null;
+        response.nextCursor = nextCursor;
+        return response;
+    }
+
     // Getter和Setter方法
     public List<T> getContent() {
         return content;
@@ -90,6 +114,22 @@ public class PageResponse<T> {
         this.hasPrevious = hasPrevious;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy;
+    }
+
     // 便捷方法
     public boolean isEmpty() {
         return content == null || content.isEmpty();
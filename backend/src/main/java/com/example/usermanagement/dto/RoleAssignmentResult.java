@@ -0,0 +1,45 @@
+package com.example.usermanagement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 角色分配结果DTO
+ */
+public class RoleAssignmentResult {
+
+    private List<Long> addedRoleIds = new ArrayList<>();
+    private List<Long> removedRoleIds = new ArrayList<>();
+
+    // 构造函数
+    public RoleAssignmentResult() {}
+
+    public RoleAssignmentResult(List<Long> addedRoleIds, List<Long> removedRoleIds) {
+        this.addedRoleIds = addedRoleIds;
+        this.removedRoleIds = removedRoleIds;
+    }
+
+    /**
+     * 角色是否有变化
+     */
+    public boolean isChanged() {
+        return !addedRoleIds.isEmpty() || !removedRoleIds.isEmpty();
+    }
+
+    // Getter和Setter方法
+    public List<Long> getAddedRoleIds() {
+        return addedRoleIds;
+    }
+
+    public void setAddedRoleIds(List<Long> addedRoleIds) {
+        this.addedRoleIds = addedRoleIds;
+    }
+
+    public List<Long> getRemovedRoleIds() {
+        return removedRoleIds;
+    }
+
+    public void setRemovedRoleIds(List<Long> removedRoleIds) {
+        this.removedRoleIds = removedRoleIds;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.usermanagement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量删除角色结果DTO
+ */
+public class RoleBatchDeleteResult {
+
+    private List<Long> deletedRoleIds = new ArrayList<>();
+    private List<RoleUserCount> blockedRoles = new ArrayList<>();
+    private List<Long> notFoundRoleIds = new ArrayList<>();
+
+    // 构造函数
+    public RoleBatchDeleteResult() {}
+
+    // Getter和Setter方法
+    public List<Long> getDeletedRoleIds() {
+        return deletedRoleIds;
+    }
+
+    public void setDeletedRoleIds(List<Long> deletedRoleIds) {
+        this.deletedRoleIds = deletedRoleIds;
+    }
+
+    /**
+     * 因正在使用而未删除的角色及其用户数
+     */
+    public List<RoleUserCount> getBlockedRoles() {
+        return blockedRoles;
+    }
+
+    public void setBlockedRoles(List<RoleUserCount> blockedRoles) {
+        this.blockedRoles = blockedRoles;
+    }
+
+    public List<Long> getNotFoundRoleIds() {
+        return notFoundRoleIds;
+    }
+
+    public void setNotFoundRoleIds(List<Long> notFoundRoleIds) {
+        this.notFoundRoleIds = notFoundRoleIds;
+    }
+}
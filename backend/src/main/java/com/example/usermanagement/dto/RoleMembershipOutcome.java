@@ -0,0 +1,22 @@
+package com.example.usermanagement.dto;
+
+/**
+ * 批量添加或移除角色成员时单个用户的处理结果
+ */
+public enum RoleMembershipOutcome {
+
+    /** 已添加角色 */
+    ADDED,
+
+    /** 用户已持有该角色，未做修改 */
+    ALREADY_MEMBER,
+
+    /** 已移除角色 */
+    REMOVED,
+
+    /** 用户未持有该角色，未做修改 */
+    NOT_MEMBER,
+
+    /** 用户不存在 */
+    USER_NOT_FOUND
+}
@@ -0,0 +1,86 @@
+package com.example.usermanagement.dto;
+
+import com.example.usermanagement.entity.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * 带用户数的角色DTO
+ */
+public class RoleUsage {
+
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int userCount;
+
+    // 构造函数
+    public RoleUsage() {}
+
+    public RoleUsage(Role role, int userCount) {
+        this.id = role.getId();
+        this.name = role.getName();
+        this.description = role.getDescription();
+        this.createdAt = role.getCreatedAt();
+        this.updatedAt = role.getUpdatedAt();
+        this.userCount = userCount;
+    }
+
+    /**
+     * 角色是否可以删除，没有用户持有时可删除
+     */
+    public boolean isDeletable() {
+        return userCount == 0;
+    }
+
+    // Getter和Setter方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public void setUserCount(int userCount) {
+        this.userCount = userCount;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.usermanagement.dto;
+
+/**
+ * 角色用户数DTO
+ */
+public class RoleUserCount {
+
+    private Long roleId;
+    private String roleName;
+    private long userCount;
+
+    // 构造函数
+    public RoleUserCount() {}
+
+    public RoleUserCount(Long roleId, String roleName, long userCount) {
+        this.roleId = roleId;
+        this.roleName = roleName;
+        this.userCount = userCount;
+    }
+
+    // Getter和Setter方法
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    public void setRoleName(String roleName) {
+        this.roleName = roleName;
+    }
+
+    public long getUserCount() {
+        return userCount;
+    }
+
+    public void setUserCount(long userCount) {
+        this.userCount = userCount;
+    }
+}
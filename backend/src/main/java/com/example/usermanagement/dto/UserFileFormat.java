@@ -0,0 +1,54 @@
+package com.example.usermanagement.dto;
+
+import com.example.usermanagement.exception.BusinessException;
+
+import java.util.Locale;
+
+/**
+ * 用户导入导出的文件格式
+ */
+public enum UserFileFormat {
+
+    /** 首行为表头的CSV */
+    CSV("text/csv"),
+
+    /** 每行一个JSON对象 */
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    UserFileFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * 解析请求参数，不区分大小写
+     */
+    public static UserFileFormat from(String value) {
+        if (value != null) {
+            for (UserFileFormat format : values()) {
+                if (format.name().equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new BusinessException("INVALID_FILE_FORMAT", "不支持的文件格式: " + value);
+    }
+
+    /**
+     * 按请求的Content-Type确定格式
+     */
+    public static UserFileFormat fromContentType(String contentType) {
+        String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+        for (UserFileFormat format : values()) {
+            if (type.startsWith(format.mediaType)) {
+                return format;
+            }
+        }
+        throw new BusinessException("INVALID_FILE_FORMAT", "不支持的文件格式: " + contentType);
+    }
+}
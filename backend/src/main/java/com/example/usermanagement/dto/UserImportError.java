@@ -0,0 +1,45 @@
+package com.example.usermanagement.dto;
+
+/**
+ * 用户导入的单行错误DTO
+ */
+public class UserImportError {
+
+    private long line;
+    private String username;
+    private String message;
+
+    // 构造函数
+    public UserImportError() {}
+
+    public UserImportError(long line, String username, String message) {
+        this.line = line;
+        this.username = username;
+        this.message = message;
+    }
+
+    // Getter和Setter方法
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.usermanagement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户导入结果DTO
+ */
+public class UserImportResult {
+
+    private long totalRows;
+    private long importedCount;
+    private long errorCount;
+    private List<UserImportError> errors = new ArrayList<>();
+
+    // 构造函数
+    public UserImportResult() {}
+
+    // Getter和Setter方法
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(long importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    /**
+     * 出错的记录总数，可能大于错误明细的条数
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public List<UserImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<UserImportError> errors) {
+        this.errors = errors;
+    }
+}
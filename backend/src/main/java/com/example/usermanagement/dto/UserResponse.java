@@ -24,6 +24,10 @@ public class UserResponse {
     public UserResponse() {}
 
     public UserResponse(User user) {
+        this(user, user.getRoles());
+    }
+
+    public UserResponse(User user, List<Role> roles) {
         this.id = user.getId();
         this.username = user.getUsername();
         this.email = user.getEmail();
@@ -31,7 +35,7 @@ public class UserResponse {
         this.createdAt = user.getCreatedAt();
         this.updatedAt = user.getUpdatedAt();
         this.lastLoginAt = user.getLastLoginAt();
-        this.roles = user.getRoles();
+        this.roles = roles;
     }
 
     // 静态工厂方法
@@ -39,6 +43,13 @@ public class UserResponse {
         return new UserResponse(user);
     }
 
+    /**
+     * 以指定的角色列表创建响应，不修改用户实体
+     */
+    public static UserResponse from(User user, List<Role> roles) {
+        return new UserResponse(user, roles);
+    }
+
     // Getter和Setter方法
     public Long getId() {
         return id;
@@ -0,0 +1,55 @@
+package com.example.usermanagement.dto;
+
+/**
+ * 用户摘要DTO
+ */
+public class UserSummary {
+
+    private Long id;
+    private String username;
+    private String email;
+    private Integer status;
+
+    // 构造函数
+    public UserSummary() {}
+
+    public UserSummary(Long id, String username, String email, Integer status) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.status = status;
+    }
+
+    // Getter和Setter方法
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+}
@@ -43,6 +43,7 @@ public enum ErrorCode {
     RUNTIME_ERROR("RUNTIME_ERROR", "系统运行时错误"),
     NULL_POINTER("NULL_POINTER", "空指针异常"),
     DATABASE_ERROR("DATABASE_ERROR", "数据库操作错误"),
+    SERVICE_BUSY("SERVICE_BUSY", "服务繁忙，请稍后重试"),
     
     // 业务相关错误
     OPERATION_FAILED("OPERATION_FAILED", "操作失败"),
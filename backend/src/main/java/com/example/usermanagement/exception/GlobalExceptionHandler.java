@@ -1,6 +1,7 @@
 package com.example.usermanagement.exception;
 
 import com.example.usermanagement.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -33,6 +34,16 @@ public class GlobalExceptionHandler {
             .body(ApiResponse.error(e.getMessage(), e.getCode()));
     }
 
+    /**
+     * 处理服务繁忙异常
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceBusyException(ServiceBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(ApiResponse.error(e.getMessage(), e.getCode()));
+    }
+
     /**
      * 处理认证异常
      */
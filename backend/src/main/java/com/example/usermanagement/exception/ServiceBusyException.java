@@ -0,0 +1,19 @@
+package com.example.usermanagement.exception;
+
+/**
+ * 服务繁忙异常
+ * 处理队列已满时抛出，由全局异常处理器转换为503响应并携带Retry-After
+ */
+public class ServiceBusyException extends BusinessException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(ErrorCode.SERVICE_BUSY.getCode(), message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.usermanagement.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.usermanagement.dto.RoleUserCount;
 import com.example.usermanagement.entity.Role;
 import org.apache.ibatis.annotations.*;
 import org.springframework.stereotype.Repository;
@@ -53,6 +54,14 @@ public interface RoleMapper extends BaseMapper<Role> {
     @Select("SELECT COUNT(*) FROM user_roles WHERE role_id = #{roleId}")
     int countUsersWithRole(@Param("roleId") Long roleId);
 
+    /**
+     * 统计每个角色的用户数（包含没有用户的角色）
+     */
+    @Select("SELECT r.id AS role_id, r.name AS role_name, COUNT(m.user_id) AS user_count " +
+            "FROM roles r LEFT JOIN user_roles m ON m.role_id = r.id " +
+            "GROUP BY r.id, r.name ORDER BY r.id")
+    List<RoleUserCount> countUsersByRole();
+
     /**
      * 获取所有角色列表
      */
@@ -76,6 +85,29 @@ public interface RoleMapper extends BaseMapper<Role> {
     @Select("SELECT * FROM roles WHERE name = 'USER'")
     Role findDefaultUserRole();
 
+    /**
+     * 统计指定角色的用户数，只返回存在的角色
+     */
+    @Select("<script>" +
+            "SELECT r.id AS role_id, r.name AS role_name, COUNT(m.user_id) AS user_count " +
+            "FROM roles r LEFT JOIN user_roles m ON m.role_id = r.id " +
+            "WHERE r.id IN " +
+            "<foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>#{roleId}</foreach>" +
+            " GROUP BY r.id, r.name ORDER BY r.id" +
+            "</script>")
+    List<RoleUserCount> countUsersByRoleIds(@Param("roleIds") List<Long> roleIds);
+
+    /**
+     * 删除指定角色中没有用户使用的角色，返回删除的行数
+     * 语句中再次检查关联，检查后被并发分配给用户的角色不会被删除
+     */
+    @Delete("<script>" +
+            "DELETE FROM roles WHERE id IN " +
+            "<foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>#{roleId}</foreach>" +
+            " AND NOT EXISTS (SELECT 1 FROM user_roles m WHERE m.role_id = roles.id)" +
+            "</script>")
+    int deleteUnusedByIds(@Param("roleIds") List<Long> roleIds);
+
     /**
      * 获取管理员角色
      */
@@ -0,0 +1,26 @@
+package com.example.usermanagement.mapper;
+
+/**
+ * LIKE匹配模式工具
+ * 供Mapper脚本通过OGNL静态调用，转义关键字中的通配符
+ */
+public final class SqlPatterns {
+
+    private SqlPatterns() {
+    }
+
+    /**
+     * 生成子串匹配模式，关键字中的\、%、_按字面匹配
+     */
+    public static String contains(String keyword) {
+        StringBuilder pattern = new StringBuilder(keyword.length() + 2).append('%');
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -3,11 +3,18 @@ package com.example.usermanagement.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.usermanagement.dto.DailyCount;
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.handler.RoleListTypeHandler;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 用户数据访问层
@@ -16,6 +23,65 @@ import java.time.LocalDateTime;
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
 
+    /** 导出时每次从数据库取的行数 */
+    int EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * 用户角色聚合列（需在&lt;script&gt;中使用，外层用户表别名为u）
+     * 以相关子查询把用户的全部角色聚合为JSON数组，由RoleListTypeHandler解析；
+     * PostgreSQL使用json_agg，H2使用标准JSON_ARRAYAGG；没有角色时为NULL，解析为空列表。
+     * 关联表别名不能用ur（JSqlParser视为关键字），否则分页插件无法优化计数语句
+     */
+    String ROLES_JSON_COLUMN =
+            "<choose>" +
+            "<when test=\"_databaseId == 'h2'\">" +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT(" +
+            "'id': r.id, 'name': r.name, 'description': r.description, " +
+            "'createdAt': r.created_at, 'updatedAt': r.updated_at) ORDER BY r.id) " +
+            "FROM user_roles urm JOIN roles r ON urm.role_id = r.id WHERE urm.user_id = u.id)" +
+            "</when>" +
+            "<otherwise>" +
+            "(SELECT json_agg(json_build_object(" +
+            "'id', r.id, 'name', r.name, 'description', r.description, " +
+            "'createdAt', r.created_at, 'updatedAt', r.updated_at) ORDER BY r.id) " +
+            "FROM user_roles urm JOIN roles r ON urm.role_id = r.id WHERE urm.user_id = u.id)" +
+            "</otherwise>" +
+            "</choose>" +
+            " AS roles_json ";
+
+    /**
+     * 用户列表的搜索和筛选条件（需在&lt;script&gt;中使用，用户表别名为u）
+     * 关键字按不区分大小写的子串匹配，PostgreSQL下由pg_trgm的GIN索引支持。
+     * 按角色筛选是逐行探测user_roles唯一索引的半连接；角色成员索引只有用户ID，没有列表排序所需的创建时间和相关度，
+     * 改用位图需要把全部成员ID传入SQL或在内存中排序分页，因此列表仍在SQL中筛选，只有总数取自角色成员索引
+     */
+    String USER_LIST_FILTER =
+            "<if test='search != null and search != \"\"'>" +
+            "<bind name='searchPattern' value='@com.example.usermanagement.mapper.SqlPatterns@contains(search)'/>" +
+            "AND (u.username ILIKE #{searchPattern} OR u.email ILIKE #{searchPattern}) " +
+            "</if>" +
+            "<if test='status != null'>" +
+            "AND u.status = #{status} " +
+            "</if>" +
+            "<if test='roleId != null'>" +
+            "AND EXISTS (SELECT 1 FROM user_roles fr WHERE fr.user_id = u.id AND fr.role_id = #{roleId}) " +
+            "</if>";
+
+    /**
+     * 搜索结果的相关度（需在&lt;script&gt;中使用，越大越相关）
+     * PostgreSQL取用户名和邮箱三元组相似度的较大值；H2没有pg_trgm，按完全匹配、用户名前缀匹配粗略排序
+     */
+    String SEARCH_RELEVANCE =
+            "<choose>" +
+            "<when test=\"_databaseId == 'h2'\">" +
+            "CASE WHEN LOWER(u.username) = LOWER(#{search}) OR LOWER(u.email) = LOWER(#{search}) THEN 2 " +
+            "WHEN LOCATE(LOWER(#{search}), LOWER(u.username)) = 1 THEN 1 ELSE 0 END" +
+            "</when>" +
+            "<otherwise>" +
+            "GREATEST(similarity(u.username, #{search}), similarity(u.email, #{search}))" +
+            "</otherwise>" +
+            "</choose>";
+
     /**
      * 根据用户名查找用户（包含角色信息）
      */
@@ -38,6 +104,27 @@ public interface UserMapper extends BaseMapper<User> {
     })
     User findByUsernameWithRoles(@Param("username") String username);
 
+    /**
+     * 登录专用：一条语句查询用户及其角色，角色聚合为JSON数组
+     */
+    @Select("<script>" +
+            "SELECT u.*, " + ROLES_JSON_COLUMN +
+            "FROM users u WHERE u.username = #{username}" +
+            "</script>")
+    @Results({
+        @Result(property = "id", column = "id"),
+        @Result(property = "username", column = "username"),
+        @Result(property = "email", column = "email"),
+        @Result(property = "password", column = "password"),
+        @Result(property = "status", column = "status"),
+        @Result(property = "createdAt", column = "created_at"),
+        @Result(property = "updatedAt", column = "updated_at"),
+        @Result(property = "lastLoginAt", column = "last_login_at"),
+        @Result(property = "roles", column = "roles_json",
+                javaType = List.class, typeHandler = RoleListTypeHandler.class)
+    })
+    User findByUsernameForLogin(@Param("username") String username);
+
     /**
      * 根据ID查找用户（包含角色信息）
      */
@@ -80,6 +167,36 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT COUNT(*) FROM users WHERE email = #{email} AND id != #{userId}")
     int countByEmailExcludingUser(@Param("email") String email, @Param("userId") Long userId);
 
+    /**
+     * 在给定用户名中查找已存在的用户名
+     */
+    @Select("<script>" +
+            "SELECT username FROM users WHERE username IN " +
+            "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach>" +
+            "</script>")
+    List<String> findExistingUsernames(@Param("usernames") List<String> usernames);
+
+    /**
+     * 在给定邮箱中查找已存在的邮箱
+     */
+    @Select("<script>" +
+            "SELECT email FROM users WHERE email IN " +
+            "<foreach collection='emails' item='email' open='(' separator=',' close=')'>#{email}</foreach>" +
+            "</script>")
+    List<String> findExistingEmails(@Param("emails") List<String> emails);
+
+    /**
+     * 批量插入用户（单条多行INSERT），生成的id回填到各用户对象
+     */
+    @Insert("<script>" +
+            "INSERT INTO users (username, email, password, status, created_at, updated_at) VALUES " +
+            "<foreach collection='users' item='user' separator=','>" +
+            "(#{user.username}, #{user.email}, #{user.password}, #{user.status}, #{user.createdAt}, #{user.updatedAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "users.id", keyColumn = "id")
+    int batchInsert(@Param("users") List<User> users);
+
     /**
      * 更新用户最后登录时间
      */
@@ -88,41 +205,75 @@ public interface UserMapper extends BaseMapper<User> {
                            @Param("lastLoginAt") LocalDateTime lastLoginAt,
                            @Param("updatedAt") LocalDateTime updatedAt);
 
+    /**
+     * 批量更新用户最后登录时间（单条多行UPDATE）
+     */
+    @Update("<script>" +
+            "UPDATE users SET last_login_at = CASE id " +
+            "<foreach collection='lastLogins' index='userId' item='lastLoginAt' separator=' '>" +
+            "WHEN #{userId} THEN #{lastLoginAt}" +
+            "</foreach>" +
+            " END, updated_at = #{updatedAt} WHERE id IN " +
+            "<foreach collection='lastLogins' index='userId' open='(' separator=',' close=')'>" +
+            "#{userId}" +
+            "</foreach>" +
+            "</script>")
+    int batchUpdateLastLoginTime(@Param("lastLogins") Map<Long, LocalDateTime> lastLogins,
+                                 @Param("updatedAt") LocalDateTime updatedAt);
+
     /**
      * 更新用户状态
      */
     @Update("UPDATE users SET status = #{status}, updated_at = #{updatedAt} WHERE id = #{id}")
     int updateStatus(@Param("id") Long id, @Param("status") Integer status, @Param("updatedAt") LocalDateTime updatedAt);
 
+    /**
+     * 查询并锁定指定用户的当前状态，只返回id和status
+     */
+    @Select("<script>" +
+            "SELECT id, status FROM users WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<User> findStatusesForUpdate(@Param("ids") List<Long> ids);
+
+    /**
+     * 批量更新用户状态（单条UPDATE）
+     */
+    @Update("<script>" +
+            "UPDATE users SET status = #{status}, updated_at = #{updatedAt} WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchUpdateStatus(@Param("ids") List<Long> ids,
+                          @Param("status") Integer status,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
     /**
      * 更新用户密码
      */
     @Update("UPDATE users SET password = #{password}, updated_at = #{updatedAt} WHERE id = #{id}")
     int updatePassword(@Param("id") Long id, @Param("password") String password, @Param("updatedAt") LocalDateTime updatedAt);
 
+    /**
+     * 重新哈希用户密码（仅当密码未被并发修改时生效）
+     */
+    @Update("UPDATE users SET password = #{newPassword} WHERE id = #{id} AND password = #{oldPassword}")
+    int rehashPassword(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+
     /**
      * 分页查询用户列表（支持搜索和筛选）
+     * 角色在同一条语句中聚合返回，每页只执行计数和查询两条语句；有搜索关键字时按相关度排序。
+     * 排序中含参数时分页插件无法去掉ORDER BY，调用方需通过Page.setCountId指定countUsers计数
      */
     @Select("<script>" +
-            "SELECT u.*, " +
-            "STRING_AGG(r.name, ',') as role_names " +
+            "SELECT u.*, " + ROLES_JSON_COLUMN +
             "FROM users u " +
-            "LEFT JOIN user_roles ur ON u.id = ur.user_id " +
-            "LEFT JOIN roles r ON ur.role_id = r.id " +
-            "WHERE 1=1 " +
-            "<if test='search != null and search != \"\"'>" +
-            "AND (u.username LIKE CONCAT('%', #{search}, '%') OR u.email LIKE CONCAT('%', #{search}, '%')) " +
-            "</if>" +
-            "<if test='status != null'>" +
-            "AND u.status = #{status} " +
-            "</if>" +
-            "<if test='roleId != null'>" +
-            "AND ur.role_id = #{roleId} " +
-            "</if>" +
-            "GROUP BY u.id " +
-            "ORDER BY u.created_at DESC" +
+            "WHERE 1=1 " + USER_LIST_FILTER +
+            "ORDER BY " +
+            "<if test='search != null and search != \"\"'>" + SEARCH_RELEVANCE + " DESC, </if>" +
+            "u.created_at DESC, u.id DESC" +
             "</script>")
-    @Results({
+    @Results(id = "userListResult", value = {
         @Result(property = "id", column = "id"),
         @Result(property = "username", column = "username"),
         @Result(property = "email", column = "email"),
@@ -130,14 +281,97 @@ public interface UserMapper extends BaseMapper<User> {
         @Result(property = "createdAt", column = "created_at"),
         @Result(property = "updatedAt", column = "updated_at"),
         @Result(property = "lastLoginAt", column = "last_login_at"),
-        @Result(property = "roles", column = "id", 
-                many = @Many(select = "com.example.usermanagement.mapper.RoleMapper.findByUserId"))
+        @Result(property = "roles", column = "roles_json",
+                javaType = List.class, typeHandler = RoleListTypeHandler.class)
     })
     IPage<User> findUsersWithPagination(Page<User> page, 
                                        @Param("search") String search,
                                        @Param("status") Integer status,
                                        @Param("roleId") Long roleId);
 
+    /**
+     * 按ID批量查询用户（含角色），按id排序，不存在的ID不返回
+     * 角色在同一条语句中聚合，不论ID数量都只执行一条语句
+     */
+    @Select("<script>" +
+            "SELECT u.*, " + ROLES_JSON_COLUMN +
+            "FROM users u " +
+            "WHERE u.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY u.id" +
+            "</script>")
+    @ResultMap("userListResult")
+    List<User> findByIdsWithRoles(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按游标查询用户列表（键集分页）
+     * 按(created_at, id)倒序取游标之后的记录，走idx_users_created_at_id索引，耗时与翻页深度无关；
+     * 游标为空时返回第一页，有搜索关键字时同样按创建时间而不是相关度排序
+     */
+    @Select("<script>" +
+            "SELECT u.*, " + ROLES_JSON_COLUMN +
+            "FROM users u " +
+            "WHERE 1=1 " + USER_LIST_FILTER +
+            "<if test='cursorCreatedAt != null'>" +
+            "AND (u.created_at, u.id) &lt; (#{cursorCreatedAt}, #{cursorId}) " +
+            "</if>" +
+            "ORDER BY u.created_at DESC, u.id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    @ResultMap("userListResult")
+    List<User> findUsersAfterCursor(@Param("search") String search,
+                                    @Param("status") Integer status,
+                                    @Param("roleId") Long roleId,
+                                    @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                    @Param("cursorId") Long cursorId,
+                                    @Param("limit") int limit);
+
+    /**
+     * 以游标流式读取符合条件的用户（含角色），按id排序
+     * PostgreSQL只在事务内（非自动提交）按fetchSize分批取数，调用方需在事务中遍历并关闭游标
+     */
+    @Select("<script>" +
+            "SELECT u.*, " + ROLES_JSON_COLUMN +
+            "FROM users u " +
+            "WHERE 1=1 " + USER_LIST_FILTER +
+            "ORDER BY u.id" +
+            "</script>")
+    @Options(fetchSize = EXPORT_FETCH_SIZE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultMap("userListResult")
+    Cursor<User> streamUsers(@Param("search") String search,
+                             @Param("status") Integer status,
+                             @Param("roleId") Long roleId);
+
+    /**
+     * 以游标流式读取全部用户的用户名和邮箱
+     * 调用方需在事务中遍历并关闭游标
+     */
+    @Select("SELECT username, email FROM users")
+    @Options(fetchSize = EXPORT_FETCH_SIZE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<User> streamUsernamesAndEmails();
+
+    /**
+     * 统计符合搜索和筛选条件的用户数
+     */
+    @Select("<script>" +
+            "SELECT COUNT(*) FROM users u " +
+            "WHERE 1=1 " + USER_LIST_FILTER +
+            "</script>")
+    long countUsers(@Param("search") String search,
+                    @Param("status") Integer status,
+                    @Param("roleId") Long roleId);
+
+    /**
+     * 符合搜索和筛选条件的查询的执行计划，首行包含PostgreSQL按统计信息估算的行数
+     */
+    @Select("<script>" +
+            "EXPLAIN SELECT 1 FROM users u " +
+            "WHERE 1=1 " + USER_LIST_FILTER +
+            "</script>")
+    List<String> explainUsers(@Param("search") String search,
+                              @Param("status") Integer status,
+                              @Param("roleId") Long roleId);
+
     /**
      * 获取用户总数
      */
@@ -150,6 +384,17 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT COUNT(*) FROM users WHERE status = 1")
     long getEnabledUserCount();
 
+    /**
+     * 按日统计指定时间之后注册的用户数
+     */
+    @Select("SELECT CAST(created_at AS DATE) AS reg_date, COUNT(*) AS reg_count FROM users " +
+            "WHERE created_at >= #{since} GROUP BY CAST(created_at AS DATE)")
+    @Results({
+        @Result(property = "date", column = "reg_date"),
+        @Result(property = "count", column = "reg_count")
+    })
+    List<DailyCount> countRegistrationsSince(@Param("since") LocalDateTime since);
+
     /**
      * 获取禁用用户数量
      */
@@ -1,10 +1,14 @@
 package com.example.usermanagement.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.usermanagement.dto.UserSummary;
 import com.example.usermanagement.entity.UserRole;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,6 +18,14 @@ import java.util.List;
 @Mapper
 public interface UserRoleMapper extends BaseMapper<UserRole> {
 
+    /**
+     * 持有角色的用户摘要，按用户ID升序
+     */
+    String ROLE_MEMBERS =
+            "SELECT u.id, u.username, u.email, u.status " +
+            "FROM user_roles urm JOIN users u ON u.id = urm.user_id " +
+            "WHERE urm.role_id = #{roleId} ";
+
     /**
      * 根据用户ID删除所有角色关联
      */
@@ -61,6 +73,97 @@ public interface UserRoleMapper extends BaseMapper<UserRole> {
             "</script>")
     int batchInsert(@Param("userRoles") List<UserRole> userRoles);
 
+    /**
+     * 为用户添加多个角色，已存在的关联跳过，返回实际插入的行数
+     * PostgreSQL使用ON CONFLICT DO NOTHING，H2以NOT EXISTS排除已存在的关联
+     */
+    @Insert("<script>" +
+            "<choose>" +
+            "<when test=\"_databaseId == 'h2'\">" +
+            "INSERT INTO user_roles (user_id, role_id, created_at) " +
+            "SELECT #{userId}, r.id, #{createdAt} FROM roles r WHERE r.id IN " +
+            "<foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>#{roleId}</foreach> " +
+            "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = #{userId} AND ur.role_id = r.id)" +
+            "</when>" +
+            "<otherwise>" +
+            "INSERT INTO user_roles (user_id, role_id, created_at) VALUES " +
+            "<foreach collection='roleIds' item='roleId' separator=','>(#{userId}, #{roleId}, #{createdAt})</foreach>" +
+            " ON CONFLICT (user_id, role_id) DO NOTHING" +
+            "</otherwise>" +
+            "</choose>" +
+            "</script>")
+    int insertRolesIfAbsent(@Param("userId") Long userId,
+                            @Param("roleIds") List<Long> roleIds,
+                            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * 删除用户的多个角色关联
+     */
+    @Delete("<script>" +
+            "DELETE FROM user_roles WHERE user_id = #{userId} AND role_id IN " +
+            "<foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>#{roleId}</foreach>" +
+            "</script>")
+    int deleteByUserIdAndRoleIds(@Param("userId") Long userId, @Param("roleIds") List<Long> roleIds);
+
+    /**
+     * 查询指定用户中存在的用户及其是否持有角色，每个存在的用户一行
+     * userId为存在的用户ID，roleId为null表示未持有该角色
+     */
+    @Select("<script>" +
+            "SELECT u.id AS user_id, urm.role_id " +
+            "FROM users u LEFT JOIN user_roles urm ON urm.user_id = u.id AND urm.role_id = #{roleId} " +
+            "WHERE u.id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            "</script>")
+    List<UserRole> findMembershipsOfUsers(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+
+    /**
+     * 为多个用户添加同一角色，已存在的关联跳过，返回实际插入关联的用户ID
+     * 两种数据库都只插入users中存在的用户，不存在或被并发删除的用户不在返回结果中，不会因外键约束使整批失败；
+     * PostgreSQL使用ON CONFLICT DO NOTHING RETURNING，H2以NOT EXISTS排除已存在的关联并从FINAL TABLE读取插入的行
+     */
+    @Select("<script>" +
+            "<choose>" +
+            "<when test=\"_databaseId == 'h2'\">" +
+            "SELECT user_id FROM FINAL TABLE (" +
+            "INSERT INTO user_roles (user_id, role_id, created_at) " +
+            "SELECT u.id, #{roleId}, #{createdAt} FROM users u WHERE u.id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach> " +
+            "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = #{roleId}))" +
+            "</when>" +
+            "<otherwise>" +
+            "INSERT INTO user_roles (user_id, role_id, created_at) " +
+            "SELECT u.id, #{roleId}, #{createdAt} FROM users u WHERE u.id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            " ON CONFLICT (user_id, role_id) DO NOTHING RETURNING user_id" +
+            "</otherwise>" +
+            "</choose>" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> insertUsersIfAbsent(@Param("roleId") Long roleId,
+                                   @Param("userIds") List<Long> userIds,
+                                   @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * 删除多个用户的同一角色关联，返回实际删除关联的用户ID
+     */
+    @Select("<script>" +
+            "<choose>" +
+            "<when test=\"_databaseId == 'h2'\">" +
+            "SELECT user_id FROM OLD TABLE (" +
+            "DELETE FROM user_roles WHERE role_id = #{roleId} AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>)" +
+            "</when>" +
+            "<otherwise>" +
+            "DELETE FROM user_roles WHERE role_id = #{roleId} AND user_id IN " +
+            "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach>" +
+            " RETURNING user_id" +
+            "</otherwise>" +
+            "</choose>" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Long> deleteByRoleIdAndUserIds(@Param("roleId") Long roleId, @Param("userIds") List<Long> userIds);
+
     /**
      * 为用户分配默认角色
      */
@@ -79,4 +182,33 @@ public interface UserRoleMapper extends BaseMapper<UserRole> {
      */
     @Select("SELECT user_id FROM user_roles WHERE role_id = #{roleId}")
     List<Long> findUserIdsByRoleId(@Param("roleId") Long roleId);
+
+    /**
+     * 以游标流式读取全部用户角色关联，仅含user_id和role_id
+     * 调用方需在事务中遍历并关闭游标
+     */
+    @Select("SELECT user_id, role_id FROM user_roles")
+    @Options(fetchSize = UserMapper.EXPORT_FETCH_SIZE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<UserRole> streamAll();
+
+    /**
+     * 按用户ID游标查询持有角色的用户摘要（键集分页）
+     * 取游标之后的记录，走idx_user_roles_role_id_user_id索引，耗时与翻页深度无关；游标为空时返回第一页
+     */
+    @Select("<script>" + ROLE_MEMBERS +
+            "<if test='afterUserId != null'>AND urm.user_id &gt; #{afterUserId} </if>" +
+            "ORDER BY urm.user_id " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<UserSummary> findMembersAfter(@Param("roleId") Long roleId,
+                                       @Param("afterUserId") Long afterUserId,
+                                       @Param("limit") int limit);
+
+    /**
+     * 以游标流式读取持有角色的全部用户摘要
+     * 调用方需在事务中遍历并关闭游标
+     */
+    @Select(ROLE_MEMBERS + "ORDER BY urm.user_id")
+    @Options(fetchSize = UserMapper.EXPORT_FETCH_SIZE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<UserSummary> streamMembers(@Param("roleId") Long roleId);
 }
\ No newline at end of file
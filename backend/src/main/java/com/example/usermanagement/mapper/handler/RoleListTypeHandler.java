@@ -0,0 +1,70 @@
+package com.example.usermanagement.mapper.handler;
+
+import com.example.usermanagement.entity.Role;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 角色列表类型处理器
+ * 将查询中聚合成JSON数组的角色列解析为List&lt;Role&gt;，使用户和角色可以在一条语句中取回
+ */
+public class RoleListTypeHandler extends BaseTypeHandler<List<Role>> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static final TypeReference<List<Role>> ROLE_LIST = new TypeReference<List<Role>>() {};
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, List<Role> parameter, JdbcType jdbcType) throws SQLException {
+        try {
+            ps.setString(i, OBJECT_MAPPER.writeValueAsString(parameter));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("角色列表序列化失败", e);
+        }
+    }
+
+    @Override
+    public List<Role> getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return parse(rs.getString(columnName));
+    }
+
+    @Override
+    public List<Role> getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public List<Role> getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return parse(cs.getString(columnIndex));
+    }
+
+    /**
+     * 解析JSON数组，空值返回空列表
+     */
+    public static List<Role> parse(String json) throws SQLException {
+        if (json == null || json.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, ROLE_LIST);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("角色列表解析失败: " + json, e);
+        }
+    }
+}
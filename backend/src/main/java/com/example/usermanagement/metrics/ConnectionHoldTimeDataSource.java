@@ -0,0 +1,124 @@
+package com.example.usermanagement.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接占用时长统计数据源
+ * 记录每个连接从借出到归还的时长，按借出时所在的服务方法打标签，输出到 db.connection.hold 直方图
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource implements Closeable {
+
+    public static final String METRIC_NAME = "db.connection.hold";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        super(targetDataSource);
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    /**
+     * 关闭被包装的连接池，保证容器销毁时连接池正常关闭
+     */
+    @Override
+    public void close() throws IOException {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) target).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new HoldTimeHandler(connection, ServiceMethodTracker.currentMethod(), System.nanoTime()));
+    }
+
+    private void record(String method, long elapsedNanos) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Timer timer = timers.computeIfAbsent(method, key -> Timer.builder(METRIC_NAME)
+                .description("JDBC连接从借出到归还的时长")
+                .tag("method", key)
+                .publishPercentileHistogram()
+                .register(registry));
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 连接代理，首次close时记录占用时长
+     */
+    private class HoldTimeHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private final String method;
+
+        private final long borrowedAt;
+
+        private boolean closed;
+
+        HoldTimeHandler(Connection target, String method, long borrowedAt) {
+            this.target = target;
+            this.method = method;
+            this.borrowedAt = borrowedAt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method invokedMethod, Object[] args) throws Throwable {
+            String name = invokedMethod.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("close".equals(name) && !closed) {
+                closed = true;
+                record(method, System.nanoTime() - borrowedAt);
+            }
+            try {
+                return invokedMethod.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.usermanagement.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 服务方法跟踪拦截器
+ * 记录当前线程正在执行的最外层服务方法，供连接占用时长等指标按方法归类
+ */
+public class ServiceMethodTracker implements MethodInterceptor {
+
+    /** 不在任何服务方法中时使用的标签 */
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 当前线程所在的服务方法，格式为 类名.方法名
+     */
+    public static String currentMethod() {
+        String method = CURRENT.get();
+        return method != null ? method : NONE;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // 只记录最外层的服务方法，服务之间的调用归入调用方
+        if (CURRENT.get() != null) {
+            return invocation.proceed();
+        }
+
+        Object target = invocation.getThis();
+        String className = target != null
+                ? target.getClass().getSimpleName()
+                : invocation.getMethod().getDeclaringClass().getSimpleName();
+        CURRENT.set(className + "." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
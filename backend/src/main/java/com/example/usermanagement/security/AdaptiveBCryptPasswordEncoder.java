@@ -0,0 +1,84 @@
+package com.example.usermanagement.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 可校准强度的BCrypt密码编码器
+ * 启动时按目标耗时测算强度，也可通过auth.bcrypt.strength固定；已存储哈希的强度低于当前强度时，
+ * 登录成功后由DaoAuthenticationProvider触发重新哈希，强度高于当前强度的哈希保持不变。
+ * 多节点部署时各节点测算结果可能不同，应固定强度，避免哈希在节点间反复改写
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    /** BCrypt允许的强度范围 */
+    private static final int MIN_LOG_ROUNDS = 4;
+    private static final int MAX_LOG_ROUNDS = 31;
+
+    /** 测算时的采样次数，取最小值以排除GC和JIT干扰 */
+    private static final int CALIBRATION_SAMPLES = 3;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * 按目标校验耗时创建编码器
+     * 在最低强度下测量单次哈希耗时，强度每加1耗时翻倍，据此推算不超过目标耗时的最大强度
+     */
+    public static AdaptiveBCryptPasswordEncoder calibrated(long targetMillis, int minStrength, int maxStrength) {
+        return new AdaptiveBCryptPasswordEncoder(calibrate(targetMillis, minStrength, maxStrength));
+    }
+
+    /**
+     * 测算强度
+     */
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int min = Math.max(MIN_LOG_ROUNDS, minStrength);
+        int max = Math.min(MAX_LOG_ROUNDS, Math.max(min, maxStrength));
+
+        String salt = BCrypt.gensalt(min);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        long targetNanos = targetMillis * 1_000_000L;
+        int strength = min;
+        long estimatedNanos = bestNanos;
+        while (strength < max && estimatedNanos * 2 <= targetNanos) {
+            estimatedNanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * 已存储哈希的强度低于当前强度时需要重新哈希，不会降低强度
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(2)) < strength;
+    }
+}
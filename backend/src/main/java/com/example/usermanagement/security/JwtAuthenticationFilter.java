@@ -1,6 +1,7 @@
 package com.example.usermanagement.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,11 +23,20 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtTokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    /**
+     * 仅凭令牌声明认证，跳过每次请求的数据库查询
+     */
+    @Value("${jwt.claims-only-auth:false}")
+    private boolean claimsOnlyAuth;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                   HttpServletResponse response, 
@@ -34,10 +44,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromToken(jwt);
+            // 令牌只解析一次，已验证过的令牌直接从缓存取
+            VerifiedToken token = StringUtils.hasText(jwt) ? verifiedTokenCache.getVerifiedToken(jwt) : null;
+
+            UserDetails userDetails = token != null ? resolveUserDetails(token) : null;
 
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -51,6 +63,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 根据令牌声明获取用户详情
+     * 声明模式下安全戳有效时直接由声明重建主体，账户已禁用时返回null；安全戳已吊销返回null；无法判定时回退到数据库
+     */
+    private UserDetails resolveUserDetails(VerifiedToken token) {
+        Long userId = token.getUserId();
+
+        if (claimsOnlyAuth) {
+            UserPrincipal principal = token.toPrincipal();
+            if (principal != null) {
+                UserSecurityVersionRegistry.StampStatus status =
+                    securityVersionRegistry.check(userId, principal.getSecurityStamp());
+                if (status == UserSecurityVersionRegistry.StampStatus.VALID) {
+                    return principal.isEnabled() ? principal : null;
+                }
+                if (status == UserSecurityVersionRegistry.StampStatus.REVOKED) {
+                    logger.debug("令牌已吊销, userId=" + userId);
+                    return null;
+                }
+            }
+        }
+
+        return userDetailsService.loadUserById(userId);
+    }
+
     /**
      * 从请求中提取JWT令牌
      */
@@ -17,6 +17,16 @@ import java.util.stream.Collectors;
 @Component
 public class JwtTokenProvider {
 
+    /**
+     * 安全戳声明名称
+     */
+    public static final String SECURITY_STAMP_CLAIM = "sv";
+
+    /**
+     * 账户启用状态声明名称
+     */
+    public static final String ENABLED_CLAIM = "enabled";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -27,12 +37,20 @@ public class JwtTokenProvider {
     private long refreshExpiration;
     
     private SecretKey signingKey;
+
+    /**
+     * 复用的令牌解析器（JwtParser不可变且线程安全）
+     */
+    private volatile JwtParser jwtParser;
     
     /**
      * 初始化签名密钥
      */
     public void init() {
         this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     /**
@@ -45,6 +63,27 @@ public class JwtTokenProvider {
         return signingKey;
     }
 
+    /**
+     * 获取令牌解析器
+     */
+    private JwtParser getJwtParser() {
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+        }
+        return jwtParser;
+    }
+
+    /**
+     * 验证令牌签名和有效期并返回声明，验证失败时抛出异常
+     */
+    public Claims parseClaims(String token) {
+        return getJwtParser()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
     /**
      * 生成JWT令牌
      */
@@ -56,10 +95,16 @@ public class JwtTokenProvider {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userPrincipal.getId().toString())
                 .claim("username", userPrincipal.getUsername())
                 .claim("authorities", authorities)
+                .claim(ENABLED_CLAIM, userPrincipal.isEnabled());
+        if (userPrincipal.getSecurityStamp() != null) {
+            builder.claim(SECURITY_STAMP_CLAIM, userPrincipal.getSecurityStamp());
+        }
+
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey())
@@ -86,24 +131,24 @@ public class JwtTokenProvider {
      * 从令牌中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parseClaims(token);
 
         return Long.parseLong(claims.getSubject());
     }
 
+    /**
+     * 根据已验证的声明重建用户主体，不访问数据库
+     * 令牌缺少用户名、权限或启用状态声明时返回null
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        return VerifiedToken.from(claims).toPrincipal();
+    }
+
     /**
      * 从令牌中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parseClaims(token);
 
         return claims.get("username", String.class);
     }
@@ -113,10 +158,7 @@ public class JwtTokenProvider {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+            parseClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             System.err.println("JWT令牌验证失败: " + e.getMessage());
@@ -129,11 +171,7 @@ public class JwtTokenProvider {
      */
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parseClaims(token);
             return claims.getExpiration().before(new Date());
         } catch (JwtException e) {
             return true;
@@ -156,10 +194,6 @@ public class JwtTokenProvider {
      * 获取令牌中的所有声明
      */
     public Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希线程池
+ * 登录、注册、修改密码等包含BCrypt计算的请求在固定大小的线程池中执行，不占用Web容器线程；
+ * 等待队列有上限，队列满时立即以服务繁忙拒绝
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+    @Value("${auth.hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private volatile Timer waitTimer;
+
+    private volatile Counter rejectedCounter;
+
+    /**
+     * 初始化线程池
+     */
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 关闭线程池，等待已提交的任务完成
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 提交任务
+     * 队列已满时返回以ServiceBusyException失败的Future
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                Timer timer = waitTimer;
+                if (timer != null) {
+                    timer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Counter counter = rejectedCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+            future.completeExceptionally(new ServiceBusyException("服务繁忙，请稍后重试", retryAfterSeconds));
+        }
+        return future;
+    }
+
+    /**
+     * 当前排队等待的任务数
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("等待执行的密码哈希任务数")
+                .register(registry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的密码哈希任务数")
+                .register(registry);
+        this.waitTimer = Timer.builder("auth.hashing.wait")
+                .description("密码哈希任务在队列中的等待时长")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("因队列已满被拒绝的密码哈希任务数")
+                .register(registry);
+    }
+}
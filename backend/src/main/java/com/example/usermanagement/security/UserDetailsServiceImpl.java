@@ -4,38 +4,101 @@ import com.example.usermanagement.entity.User;
 import com.example.usermanagement.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Spring Security用户详情服务实现
+ * 查询结果经UserPrincipalCache缓存，命中时不访问数据库；
+ * 同时负责登录成功后按当前BCrypt强度重新哈希密码
  */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userMapper.findByUsernameWithRoles(username);
-        if (user == null) {
+        UserPrincipal principal = username != null
+                ? userPrincipalCache.getByUsername(username, this::findByUsername)
+                : findByUsername(null);
+        if (principal == null) {
             throw new UsernameNotFoundException("用户不存在: " + username);
         }
 
-        return UserPrincipal.create(user);
+        return principal;
     }
 
-    @Transactional
     public UserDetails loadUserById(Long id) {
-        User user = userMapper.findByIdWithRoles(id);
-        if (user == null) {
+        UserPrincipal principal = id != null
+                ? userPrincipalCache.getById(id, this::findById)
+                : findById(null);
+        if (principal == null) {
             throw new UsernameNotFoundException("用户不存在: " + id);
         }
 
-        return UserPrincipal.create(user);
+        return principal;
+    }
+
+    /**
+     * 登录专用加载
+     * 一条语句取回用户及角色，返回的实体用于构建登录响应；
+     * 同时用其刷新主体缓存，使随后的认证无需再次查询。
+     * 读取后若用户安全版本已变更则不写缓存，交由变更方的失效操作处理
+     */
+    public User loadUserForLogin(String username) {
+        if (username == null) {
+            return null;
+        }
+
+        String securityStamp = securityVersionRegistry.currentStamp();
+        User user = userMapper.findByUsernameForLogin(username);
+        if (user != null && securityVersionRegistry.check(user.getId(), securityStamp)
+                == UserSecurityVersionRegistry.StampStatus.VALID) {
+            userPrincipalCache.put(UserPrincipal.create(user, securityStamp));
+        }
+        return user;
+    }
+
+    /**
+     * 登录成功后以新的强度保存密码哈希
+     * 密码本身未变，不吊销已签发的令牌，只失效主体缓存
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (!(user instanceof UserPrincipal)) {
+            return user;
+        }
+
+        UserPrincipal principal = (UserPrincipal) user;
+        int updated = userMapper.rehashPassword(principal.getId(), principal.getPassword(), newPassword);
+        if (updated == 0) {
+            // 密码已被并发修改，保留原主体
+            return principal;
+        }
+        userPrincipalCache.evict(principal.getId());
+        return principal.withPassword(newPassword);
+    }
+
+    private UserPrincipal findByUsername(String username) {
+        // 安全戳须在读取用户数据之前获取
+        String securityStamp = securityVersionRegistry.currentStamp();
+        User user = userMapper.findByUsernameWithRoles(username);
+        return user != null ? UserPrincipal.create(user, securityStamp) : null;
+    }
+
+    private UserPrincipal findById(Long id) {
+        String securityStamp = securityVersionRegistry.currentStamp();
+        User user = userMapper.findByIdWithRoles(id);
+        return user != null ? UserPrincipal.create(user, securityStamp) : null;
     }
-}
\ No newline at end of file
+}
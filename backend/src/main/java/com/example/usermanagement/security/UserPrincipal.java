@@ -5,33 +5,54 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Spring Security用户主体
+ * 创建后不可修改，可作为快照在线程间共享和缓存
  */
 public class UserPrincipal implements UserDetails {
     
-    private Long id;
-    private String username;
-    private String email;
-    private String password;
-    private boolean enabled;
-    private Collection<? extends GrantedAuthority> authorities;
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final boolean enabled;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final String securityStamp;
 
     public UserPrincipal(Long id, String username, String email, String password, 
                         boolean enabled, Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, password, enabled, authorities, null);
+    }
+
+    public UserPrincipal(Long id, String username, String email, String password,
+                        boolean enabled, Collection<? extends GrantedAuthority> authorities,
+                        String securityStamp) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
         this.enabled = enabled;
-        this.authorities = authorities;
+        this.authorities = authorities != null
+                ? Collections.unmodifiableList(new ArrayList<>(authorities))
+                : Collections.<GrantedAuthority>emptyList();
+        this.securityStamp = securityStamp;
     }
 
     public static UserPrincipal create(User user) {
+        return create(user, null);
+    }
+
+    /**
+     * 根据用户实体创建主体，并记录读取数据前获取的安全戳
+     */
+    public static UserPrincipal create(User user, String securityStamp) {
         List<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
                 .collect(Collectors.toList());
@@ -42,10 +63,32 @@ public class UserPrincipal implements UserDetails {
                 user.getEmail(),
                 user.getPassword(),
                 user.getStatus() == 1, // 1表示启用
-                authorities
+                authorities,
+                securityStamp
         );
     }
 
+    /**
+     * 复制主体并替换密码哈希
+     */
+    public UserPrincipal withPassword(String newPassword) {
+        return new UserPrincipal(id, username, email, newPassword, enabled, authorities, securityStamp);
+    }
+
+    /**
+     * 根据令牌声明创建主体（不含邮箱和密码）
+     */
+    public static UserPrincipal fromClaims(Long id, String username, String authorities, boolean enabled,
+                                           String securityStamp) {
+        List<GrantedAuthority> grantedAuthorities = authorities == null || authorities.isEmpty()
+                ? Collections.<GrantedAuthority>emptyList()
+                : Arrays.stream(authorities.split(","))
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList());
+
+        return new UserPrincipal(id, username, null, null, enabled, grantedAuthorities, securityStamp);
+    }
+
     public Long getId() {
         return id;
     }
@@ -54,6 +97,10 @@ public class UserPrincipal implements UserDetails {
         return email;
     }
 
+    public String getSecurityStamp() {
+        return securityStamp;
+    }
+
     @Override
     public String getUsername() {
         return username;
@@ -0,0 +1,159 @@
+package com.example.usermanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户主体缓存
+ * 按用户ID和用户名分别缓存不可变的UserPrincipal快照，按容量和存活时间淘汰，
+ * 用户或角色数据变更时由服务层精确失效
+ */
+@Component
+public class UserPrincipalCache implements MeterBinder {
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${auth.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<Long, UserPrincipal> byId;
+
+    private Cache<String, UserPrincipal> byUsername;
+
+    /** 失效次数，用于发现加载期间发生的失效 */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 初始化缓存
+     */
+    @PostConstruct
+    public void init() {
+        this.byId = newCache();
+        this.byUsername = newCache();
+    }
+
+    private <K> Cache<K, UserPrincipal> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 按用户ID获取主体，未命中时调用loader加载，loader返回null时不缓存
+     */
+    public UserPrincipal getById(Long userId, Function<Long, UserPrincipal> loader) {
+        return byId.get(userId, loader);
+    }
+
+    /**
+     * 按用户名获取主体，未命中时调用loader加载，loader返回null时不缓存
+     * 按用户名失效前不知道正在加载的条目属于哪个用户，加载期间发生过失效时丢弃刚写入的条目，
+     * 避免提交前读到的旧数据在失效之后写回缓存
+     */
+    public UserPrincipal getByUsername(String username, Function<String, UserPrincipal> loader) {
+        long evictionsBefore = evictions.get();
+        UserPrincipal principal = byUsername.get(username, loader);
+        if (evictions.get() != evictionsBefore) {
+            byUsername.invalidate(username);
+        }
+        return principal;
+    }
+
+    /**
+     * 写入主体快照
+     * 调用方需保证快照读取后用户数据未被修改，否则可能覆盖失效操作
+     */
+    public void put(UserPrincipal principal) {
+        byId.put(principal.getId(), principal);
+        byUsername.put(principal.getUsername(), principal);
+    }
+
+    /**
+     * 失效指定用户的缓存
+     * 在事务中调用时，提交后会再次失效，避免并发读取把提交前的旧数据写回缓存
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(Collections.singleton(userId));
+    }
+
+    /**
+     * 批量失效用户缓存
+     */
+    public void evict(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(userIds);
+        doEvict(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(ids);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空全部缓存（如角色重命名影响所有用户的权限）
+     */
+    public void evictAll() {
+        doEvictAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvictAll();
+                }
+            });
+        }
+    }
+
+    private void doEvict(Set<Long> ids) {
+        evictions.incrementAndGet();
+        byId.invalidateAll(ids);
+        List<String> usernames = byUsername.asMap().entrySet().stream()
+                .filter(entry -> ids.contains(entry.getValue().getId()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        byUsername.invalidateAll(usernames);
+    }
+
+    private void doEvictAll() {
+        evictions.incrementAndGet();
+        byId.invalidateAll();
+        byUsername.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "userPrincipalsById");
+        CaffeineCacheMetrics.monitor(registry, byUsername, "userPrincipalsByUsername");
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.usermanagement.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户安全版本登记表
+ * 令牌签发时携带安全戳（进程纪元:全局序号），用户状态、角色、密码等发生变化时登记新的序号，
+ * 序号早于登记值的令牌即视为已吊销。登记表仅保存在内存中，其他纪元签发的令牌无法判定
+ */
+@Component
+public class UserSecurityVersionRegistry {
+
+    /**
+     * 安全戳校验结果
+     */
+    public enum StampStatus {
+        /** 安全戳有效，可直接信任令牌声明 */
+        VALID,
+        /** 令牌签发后用户安全信息已变更 */
+        REVOKED,
+        /** 非本进程签发或格式无法识别，需回退到数据库校验 */
+        UNKNOWN
+    }
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile long globalRevokedBefore = 0L;
+
+    /**
+     * 获取当前安全戳，应在读取用户数据之前调用
+     */
+    public String currentStamp() {
+        return epoch + ":" + sequence.get();
+    }
+
+    /**
+     * 吊销用户在此之前签发的令牌
+     * 在事务中调用时，提交后会再次登记，覆盖提交前读取到旧数据的签发
+     */
+    public void bump(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        revokedBefore.put(userId, sequence.incrementAndGet());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokedBefore.put(userId, sequence.incrementAndGet());
+                }
+            });
+        }
+    }
+
+    /**
+     * 吊销所有用户在此之前签发的令牌（如角色重命名）
+     */
+    public void bumpAll() {
+        globalRevokedBefore = sequence.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    globalRevokedBefore = sequence.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * 校验令牌中的安全戳
+     */
+    public StampStatus check(Long userId, String stamp) {
+        if (userId == null || !StringUtils.hasText(stamp)) {
+            return StampStatus.UNKNOWN;
+        }
+
+        int separator = stamp.indexOf(':');
+        if (separator <= 0) {
+            return StampStatus.UNKNOWN;
+        }
+
+        long stampEpoch;
+        long stampSequence;
+        try {
+            stampEpoch = Long.parseLong(stamp.substring(0, separator));
+            stampSequence = Long.parseLong(stamp.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return StampStatus.UNKNOWN;
+        }
+
+        if (stampEpoch != epoch) {
+            return StampStatus.UNKNOWN;
+        }
+
+        long userRevokedBefore = revokedBefore.getOrDefault(userId, 0L);
+        if (stampSequence < globalRevokedBefore || stampSequence < userRevokedBefore) {
+            return StampStatus.REVOKED;
+        }
+        return StampStatus.VALID;
+    }
+
+    /**
+     * 登记表中的用户数量
+     */
+    public int size() {
+        return revokedBefore.size();
+    }
+}
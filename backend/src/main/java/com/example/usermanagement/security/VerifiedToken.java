@@ -0,0 +1,71 @@
+package com.example.usermanagement.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * 已验证的JWT令牌
+ * 验签后只从声明中提取认证所需的字段，实例不可变，缓存后可在请求之间安全共享
+ */
+public final class VerifiedToken {
+
+    private final Long userId;
+    private final String username;
+    private final String authorities;
+    private final Boolean enabled;
+    private final String securityStamp;
+    /** 过期时刻的毫秒时间戳，令牌没有exp声明时为null */
+    private final Long expiresAt;
+
+    private VerifiedToken(Long userId, String username, String authorities, Boolean enabled,
+                          String securityStamp, Long expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.authorities = authorities;
+        this.enabled = enabled;
+        this.securityStamp = securityStamp;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 从已验证的声明中提取字段
+     */
+    public static VerifiedToken from(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(
+                Long.parseLong(claims.getSubject()),
+                claims.get("username", String.class),
+                claims.get("authorities", String.class),
+                claims.get(JwtTokenProvider.ENABLED_CLAIM, Boolean.class),
+                claims.get(JwtTokenProvider.SECURITY_STAMP_CLAIM, String.class),
+                expiration != null ? expiration.getTime() : null);
+    }
+
+    /**
+     * 由令牌字段重建用户主体，不访问数据库
+     * 令牌缺少用户名、权限或启用状态声明时返回null
+     */
+    public UserPrincipal toPrincipal() {
+        if (username == null || authorities == null || enabled == null) {
+            return null;
+        }
+        return UserPrincipal.fromClaims(userId, username, authorities, enabled, securityStamp);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getSecurityStamp() {
+        return securityStamp;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+}
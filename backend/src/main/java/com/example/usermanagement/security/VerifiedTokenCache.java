@@ -0,0 +1,119 @@
+package com.example.usermanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证JWT令牌缓存
+ * 以令牌摘要为键缓存验签后提取的不可变令牌字段，条目在令牌过期时刻失效，
+ * 同一令牌在有效期内只做一次签名验证
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, VerifiedToken> cache;
+
+    /**
+     * 初始化缓存
+     */
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build();
+    }
+
+    /**
+     * 获取已验证的令牌
+     * 未命中时验证签名并缓存结果，令牌无效或已过期时返回null
+     */
+    public VerifiedToken getVerifiedToken(String token) {
+        String key = digest(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified != null) {
+            return verified;
+        }
+
+        try {
+            Claims claims = tokenProvider.parseClaims(token);
+            verified = VerifiedToken.from(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        // 没有过期时间的令牌不缓存，避免永久驻留
+        if (verified.getExpiresAt() != null) {
+            cache.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * 当前缓存的令牌数量
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 计算令牌的SHA-256摘要，避免在内存中长期保存原始令牌
+     */
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+
+    /**
+     * 按令牌exp声明计算缓存条目的存活时间
+     */
+    private static class ExpireAtTokenExpiration implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remainingMillis = token.getExpiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
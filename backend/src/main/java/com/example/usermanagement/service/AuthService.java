@@ -8,15 +8,18 @@ import com.example.usermanagement.exception.BusinessException;
 import com.example.usermanagement.mapper.UserMapper;
 import com.example.usermanagement.mapper.UserRoleMapper;
 import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.UserDetailsServiceImpl;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -43,12 +46,37 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     /**
      * 用户登录
+     * 不开启事务，密码校验期间不占用数据库连接；
+     * 用户及角色只查询一次，同时用于认证和构建响应
      */
-    @Transactional
     public Map<String, Object> login(LoginRequest loginRequest) {
         try {
+            // 一次查询加载用户及角色，并预热认证使用的主体缓存
+            User user = userDetailsService.loadUserForLogin(loginRequest.getUsername());
+
             // 创建认证令牌
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -69,12 +97,15 @@ public class AuthService {
             String accessToken = tokenProvider.generateToken(authentication);
             String refreshToken = tokenProvider.generateRefreshToken(authentication);
 
-            // 更新最后登录时间
+            // 登记最后登录时间，由LastLoginRecorder批量写入
             LocalDateTime now = LocalDateTime.now();
-            userMapper.updateLastLoginTime(userPrincipal.getId(), now, now);
+            lastLoginRecorder.record(userPrincipal.getId(), now);
 
-            // 获取完整用户信息
-            User user = userMapper.findByIdWithRoles(userPrincipal.getId());
+            // 复用登录查询的用户信息，仅在认证期间用户被替换时重新查询
+            if (user == null || !user.getId().equals(userPrincipal.getId())) {
+                user = userMapper.findByIdWithRoles(userPrincipal.getId());
+            }
+            user.setLastLoginAt(now);
             UserResponse userResponse = UserResponse.from(user);
 
             // 构建响应
@@ -93,18 +124,12 @@ public class AuthService {
 
     /**
      * 用户注册
+     * 密码在事务外完成哈希，事务只包含写入操作
      */
-    @Transactional
     public UserResponse register(RegisterRequest registerRequest) {
-        // 检查用户名是否已存在
-        if (userMapper.countByUsername(registerRequest.getUsername()) > 0) {
-            throw new BusinessException("USERNAME_EXISTS", "用户名已存在");
-        }
-
-        // 检查邮箱是否已被注册
-        if (userMapper.countByEmail(registerRequest.getEmail()) > 0) {
-            throw new BusinessException("EMAIL_EXISTS", "邮箱已被注册");
-        }
+        // 检查用户名和邮箱是否已被占用
+        UserUniqueness.checkAvailable(userAvailabilityFilter, userMapper,
+                registerRequest.getUsername(), registerRequest.getEmail());
 
         // 创建新用户
         User user = new User();
@@ -115,16 +140,26 @@ public class AuthService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        // 保存用户
-        userMapper.insert(user);
-
-        // 为用户分配默认角色
-        userRoleMapper.assignDefaultRole(user.getId());
-
-        // 获取完整用户信息（包含角色）
-        User savedUser = userMapper.findByIdWithRoles(user.getId());
-        
-        return UserResponse.from(savedUser);
+        try {
+            return transactionTemplate.execute(status -> {
+                // 保存用户
+                userMapper.insert(user);
+
+                // 为用户分配默认角色
+                userRoleMapper.assignDefaultRole(user.getId());
+
+                // 获取完整用户信息（包含角色）
+                User savedUser = userMapper.findByIdWithRoles(user.getId());
+                roleMembershipIndex.userCreated(savedUser);
+                userAvailabilityFilter.userCreated(savedUser);
+                userStatisticsService.userCreated(savedUser);
+
+                return UserResponse.from(savedUser);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 检查之后有并发注册或其他节点刚创建的同名用户
+            throw UserUniqueness.duplicateUser(userAvailabilityFilter, userMapper, user, e);
+        }
     }
 
     /**
@@ -136,6 +171,7 @@ public class AuthService {
         }
 
         Long userId = tokenProvider.getUserIdFromToken(refreshToken);
+        String securityStamp = securityVersionRegistry.currentStamp();
         User user = userMapper.findByIdWithRoles(userId);
         
         if (user == null || user.getStatus() != 1) {
@@ -143,7 +179,7 @@ public class AuthService {
         }
 
         // 创建认证对象
-        UserPrincipal userPrincipal = UserPrincipal.create(user);
+        UserPrincipal userPrincipal = UserPrincipal.create(user, securityStamp);
         Authentication authentication = new UsernamePasswordAuthenticationToken(
             userPrincipal, null, userPrincipal.getAuthorities());
 
@@ -178,6 +214,9 @@ public class AuthService {
      * 检查用户是否存在且启用
      */
     public boolean isUserActiveByUsername(String username) {
+        if (userAvailabilityFilter.isUsernameFree(username)) {
+            return false;
+        }
         User user = userMapper.findByUsernameWithRoles(username);
         return user != null && user.getStatus() == 1;
     }
@@ -194,6 +233,6 @@ public class AuthService {
      * 检查邮箱是否可用
      */
     public boolean isEmailAvailable(String email) {
-        return userMapper.countByEmail(email) == 0;
+        return !UserUniqueness.isEmailTaken(userAvailabilityFilter, userMapper, email);
     }
-}
\ No newline at end of file
+}
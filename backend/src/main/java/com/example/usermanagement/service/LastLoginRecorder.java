@@ -0,0 +1,210 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.mapper.UserMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最后登录时间延迟写入服务
+ * 登录时只在内存中按用户合并最后登录时间，定时以多行UPDATE批量落库；
+ * 待写入条目数有上限，达到上限时丢弃新用户的条目并计入丢弃数，同时请调度线程立即写入一次；
+ * 登录线程从不执行数据库写入，写入积压体现在延迟和丢弃指标上
+ */
+@Service
+public class LastLoginRecorder implements MeterBinder {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Value("${auth.last-login.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${auth.last-login.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** 是否已请求调度线程提前写入 */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /** 最早一条未写入记录的登记时间（毫秒），0表示没有待写入记录 */
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong failedFlushCount = new AtomicLong();
+
+    private volatile Timer flushTimer;
+
+    /**
+     * 登记用户的最后登录时间，同一用户只保留最新的时间
+     */
+    public void record(Long userId, LocalDateTime lastLoginAt) {
+        if (userId == null || lastLoginAt == null) {
+            return;
+        }
+
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            requestFlush();
+            droppedCount.incrementAndGet();
+            return;
+        }
+
+        pending.merge(userId, lastLoginAt, (current, latest) -> latest.isAfter(current) ? latest : current);
+        oldestPendingAt.compareAndSet(0L, System.currentTimeMillis());
+    }
+
+    /**
+     * 定时写入待更新的最后登录时间
+     */
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭前写入剩余记录
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 待写入的用户数量
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 最早一条未写入记录已等待的毫秒数
+     */
+    public long getLagMillis() {
+        long oldest = oldestPendingAt.get();
+        return oldest == 0L ? 0L : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * 请调度线程立即写入一次，已有未执行的请求时不再重复提交
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskScheduler.schedule(() -> {
+                flushRequested.set(false);
+                flush();
+            }, Instant.now());
+        } catch (TaskRejectedException e) {
+            // 调度器已关闭，由关闭前的写入处理
+            flushRequested.set(false);
+        }
+    }
+
+    private void doFlush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        // 此后登记的记录重新开始计算延迟
+        oldestPendingAt.set(0L);
+
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime lastLoginAt = pending.remove(userId);
+            if (lastLoginAt == null) {
+                continue;
+            }
+            batch.put(userId, lastLoginAt);
+            if (batch.size() >= batchSize) {
+                if (!write(batch)) {
+                    break;
+                }
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+
+        Timer timer = flushTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 写入一批记录，失败时放回待写入队列，等待下次重试
+     */
+    private boolean write(Map<Long, LocalDateTime> batch) {
+        try {
+            userMapper.batchUpdateLastLoginTime(batch, LocalDateTime.now());
+            flushedCount.addAndGet(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failedFlushCount.incrementAndGet();
+            batch.forEach((userId, lastLoginAt) ->
+                    pending.merge(userId, lastLoginAt, (current, failed) -> failed.isAfter(current) ? failed : current));
+            oldestPendingAt.compareAndSet(0L, System.currentTimeMillis());
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.last-login.pending", pending, Map::size)
+                .description("待写入最后登录时间的用户数")
+                .register(registry);
+        Gauge.builder("auth.last-login.lag", this, recorder -> recorder.getLagMillis() / 1000.0)
+                .description("最早一条未写入记录已等待的秒数")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("auth.last-login.flushed", flushedCount, AtomicLong::get)
+                .description("已写入的最后登录时间记录数")
+                .register(registry);
+        FunctionCounter.builder("auth.last-login.dropped", droppedCount, AtomicLong::get)
+                .description("因缓冲区已满被丢弃的记录数")
+                .register(registry);
+        FunctionCounter.builder("auth.last-login.flush.failures", failedFlushCount, AtomicLong::get)
+                .description("写入失败的批次数")
+                .register(registry);
+        this.flushTimer = Timer.builder("auth.last-login.flush")
+                .description("单次写入最后登录时间的耗时")
+                .register(registry);
+    }
+}
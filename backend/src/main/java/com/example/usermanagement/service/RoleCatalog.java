@@ -0,0 +1,193 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.mapper.RoleMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 角色目录
+ * 全部角色以不可变快照保存在内存中，按ID、名称查询不访问数据库；角色增删改在事务提交后递增版本号，
+ * 快照版本落后时下次读取整体重新加载并原子替换。
+ * 返回的Role实例是快照中的只读实例，在所有调用方之间共享，调用setter会抛出UnsupportedOperationException；
+ * 需要修改角色时应从数据库重新查询
+ */
+@Component
+public class RoleCatalog {
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    /** 角色数据的版本，每次提交的角色变更加一 */
+    private final AtomicLong version = new AtomicLong();
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /** 为null表示尚未加载 */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 全部角色，按创建时间排序
+     */
+    public List<Role> getAll() {
+        return current().roles;
+    }
+
+    /**
+     * 按ID查找角色，不存在时返回null
+     */
+    public Role findById(Long roleId) {
+        return current().byId.get(roleId);
+    }
+
+    /**
+     * 按名称查找角色，不存在时返回null
+     */
+    public Role findByName(String name) {
+        return current().byName.get(name);
+    }
+
+    /**
+     * 把查询得到的角色替换为目录中的共享实例，目录中没有的角色保持原样
+     */
+    public List<Role> intern(List<Role> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return roles;
+        }
+        Map<Long, Role> byId = current().byId;
+        List<Role> interned = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            Role shared = byId.get(role.getId());
+            interned.add(shared != null ? shared : role);
+        }
+        return interned;
+    }
+
+    /**
+     * 当前数据版本
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 角色发生变更，在事务提交后使快照过期
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 返回与当前版本一致的快照，必要时重新加载
+     * 先读版本号再查询，查询期间提交的变更会使新快照的版本落后，下次读取时再次加载
+     */
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.version == version.get()) {
+            return current;
+        }
+        reloadLock.lock();
+        try {
+            current = snapshot;
+            long loadingVersion = version.get();
+            if (current != null && current.version == loadingVersion) {
+                return current;
+            }
+            Snapshot loaded = new Snapshot(loadingVersion, roleMapper.findAllRoles());
+            this.snapshot = loaded;
+            return loaded;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 角色快照
+     */
+    private static class Snapshot {
+
+        private final long version;
+        private final List<Role> roles;
+        private final Map<Long, Role> byId;
+        private final Map<String, Role> byName;
+
+        Snapshot(long version, List<Role> roles) {
+            Map<Long, Role> byId = new HashMap<>();
+            Map<String, Role> byName = new HashMap<>();
+            List<Role> readOnly = new ArrayList<>(roles.size());
+            for (Role loaded : roles) {
+                Role role = new ReadOnlyRole(loaded);
+                readOnly.add(role);
+                byId.put(role.getId(), role);
+                byName.put(role.getName(), role);
+            }
+            this.version = version;
+            this.roles = Collections.unmodifiableList(readOnly);
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+        }
+    }
+
+    /**
+     * 快照中的只读角色，字段在构造时复制，之后所有setter都拒绝修改
+     */
+    private static class ReadOnlyRole extends Role {
+
+        ReadOnlyRole(Role role) {
+            super.setId(role.getId());
+            super.setName(role.getName());
+            super.setDescription(role.getDescription());
+            super.setCreatedAt(role.getCreatedAt());
+            super.setUpdatedAt(role.getUpdatedAt());
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCreatedAt(LocalDateTime createdAt) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setUpdatedAt(LocalDateTime updatedAt) {
+            throw readOnly();
+        }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("角色目录中的角色不可修改");
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.entity.UserRole;
+import com.example.usermanagement.mapper.UserRoleMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.ibatis.cursor.Cursor;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 角色成员索引
+ * 每个角色以Roaring压缩位图（64位键）保存持有该角色的用户ID，启动时从user_roles加载，user_roles的变更在事务提交后同步到位图；
+ * 判断用户是否持有角色、统计角色用户数只做内存计算。
+ * 加载期间提交的变更记入待重放列表，加载完成后按提交顺序重放到新位图再整体替换；定时重新加载以校正偏差
+ */
+@Component
+public class RoleMembershipIndex implements MeterBinder {
+
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /** 角色ID到成员位图，为null表示尚未加载；由lock保护 */
+    private Map<Long, Members> members;
+
+    /** 加载期间提交的变更，不在加载时为null；由lock保护 */
+    private List<Consumer<Map<Long, Members>>> pending;
+
+    /**
+     * 应用启动后加载索引
+     * 加载失败（如数据库尚未就绪）时保持未加载状态，首次使用时再加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            // 首次使用时重试
+        }
+    }
+
+    /**
+     * 定时用数据库中的关联重建索引，纠正提交后回调乱序等原因产生的偏差
+     * 尚未加载时不执行
+     */
+    @Scheduled(fixedDelayString = "${users.role-index.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (isLoaded()) {
+            reload();
+        }
+    }
+
+    /**
+     * 判断用户是否持有角色
+     */
+    public boolean contains(Long roleId, Long userId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Members roleMembers = members.get(roleId);
+            return roleMembers != null && roleMembers.bits.contains(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 持有角色的用户数
+     */
+    public int count(Long roleId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Members roleMembers = members.get(roleId);
+            return roleMembers != null ? roleMembers.count : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 各角色的用户数，在同一时刻读取；没有用户的角色不在结果中
+     */
+    public Map<Long, Integer> counts() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> counts = new HashMap<>(members.size() * 2);
+            members.forEach((roleId, roleMembers) -> {
+                if (roleMembers.count > 0) {
+                    counts.put(roleId, roleMembers.count);
+                }
+            });
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 持有角色的用户ID，按ID升序
+     */
+    public List<Long> userIds(Long roleId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Members roleMembers = members.get(roleId);
+            List<Long> userIds = new ArrayList<>(roleMembers != null ? roleMembers.count : 0);
+            if (roleMembers != null) {
+                roleMembers.bits.forEach(userIds::add);
+            }
+            return userIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 记录新建的用户，user需包含角色
+     */
+    public void userCreated(User user) {
+        List<Long> roleIds = new ArrayList<>();
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                roleIds.add(role.getId());
+            }
+        }
+        rolesAdded(user.getId(), roleIds);
+    }
+
+    /**
+     * 记录为用户新增的角色
+     */
+    public void rolesAdded(Long userId, Collection<Long> roleIds) {
+        List<Long> added = new ArrayList<>(roleIds);
+        afterCommit(index -> added.forEach(roleId -> index.computeIfAbsent(roleId, id -> new Members()).add(userId)));
+    }
+
+    /**
+     * 记录从用户移除的角色
+     */
+    public void rolesRemoved(Long userId, Collection<Long> roleIds) {
+        List<Long> removed = new ArrayList<>(roleIds);
+        afterCommit(index -> removed.forEach(roleId -> {
+            Members roleMembers = index.get(roleId);
+            if (roleMembers != null) {
+                roleMembers.remove(userId);
+            }
+        }));
+    }
+
+    /**
+     * 记录为多个用户新增的同一角色
+     */
+    public void usersAdded(Long roleId, Collection<Long> userIds) {
+        List<Long> added = new ArrayList<>(userIds);
+        afterCommit(index -> {
+            Members roleMembers = index.computeIfAbsent(roleId, id -> new Members());
+            added.forEach(roleMembers::add);
+        });
+    }
+
+    /**
+     * 记录从多个用户移除的同一角色
+     */
+    public void usersRemoved(Long roleId, Collection<Long> userIds) {
+        List<Long> removed = new ArrayList<>(userIds);
+        afterCommit(index -> {
+            Members roleMembers = index.get(roleId);
+            if (roleMembers != null) {
+                removed.forEach(roleMembers::remove);
+            }
+        });
+    }
+
+    /**
+     * 记录删除的角色
+     */
+    public void roleDeleted(Long roleId) {
+        afterCommit(index -> index.remove(roleId));
+    }
+
+    /**
+     * 位图占用的字节数
+     */
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            if (members != null) {
+                for (Members roleMembers : members.values()) {
+                    bytes += roleMembers.bits.getLongSizeInBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的用户角色关联总数
+     */
+    public long getMembershipCount() {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            if (members != null) {
+                for (Members roleMembers : members.values()) {
+                    count += roleMembers.count;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("users.role-index.memory", this, RoleMembershipIndex::getMemoryBytes)
+                .description("角色成员位图占用的内存")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("users.role-index.memberships", this, RoleMembershipIndex::getMembershipCount)
+                .description("角色成员索引中的用户角色关联数")
+                .register(registry);
+    }
+
+    /**
+     * 从数据库重建索引
+     * 扫描期间提交的变更同时作用于旧位图并记入待重放列表，扫描完成后重放到新位图再替换
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<Long, Members> loaded = new HashMap<>();
+            try {
+                scan(loaded);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pending = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                pending.forEach(mutation -> mutation.accept(loaded));
+                pending = null;
+                members = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void scan(Map<Long, Members> loaded) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.execute(transactionStatus -> {
+            try (Cursor<UserRole> cursor = userRoleMapper.streamAll()) {
+                for (UserRole userRole : cursor) {
+                    loaded.computeIfAbsent(userRole.getRoleId(), id -> new Members()).add(userRole.getUserId());
+                }
+                // 连续的用户ID改用行程编码
+                loaded.values().forEach(roleMembers -> roleMembers.bits.runOptimize());
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return members != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!isLoaded()) {
+            reloadLock.lock();
+            try {
+                if (!isLoaded()) {
+                    reload();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 在事务提交后把变更应用到位图，没有事务时立即应用
+     * 尚未加载时忽略变更，之后的加载会读到已提交的数据
+     */
+    private void afterCommit(Consumer<Map<Long, Members>> mutation) {
+        Runnable apply = () -> {
+            lock.writeLock().lock();
+            try {
+                if (members != null) {
+                    mutation.accept(members);
+                }
+                if (pending != null) {
+                    pending.add(mutation);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * 单个角色的成员位图及成员数
+     * 关闭基数缓存，读锁下的并发读取不会修改位图内部状态；成员数单独维护
+     */
+    private static class Members {
+
+        private final Roaring64NavigableMap bits = new Roaring64NavigableMap(false, false);
+        private int count;
+
+        void add(long userId) {
+            if (!bits.contains(userId)) {
+                bits.addLong(userId);
+                count++;
+            }
+        }
+
+        void remove(long userId) {
+            if (bits.contains(userId)) {
+                bits.removeLong(userId);
+                count--;
+            }
+        }
+    }
+}
@@ -1,16 +1,46 @@
 package com.example.usermanagement.service;
 
+import com.example.usermanagement.dto.CountStrategy;
+import com.example.usermanagement.dto.PageResponse;
+import com.example.usermanagement.dto.RoleAssignmentResult;
+import com.example.usermanagement.dto.RoleBatchDeleteResult;
+import com.example.usermanagement.dto.RoleMembershipOutcome;
+import com.example.usermanagement.dto.RoleUsage;
+import com.example.usermanagement.dto.RoleUserCount;
+import com.example.usermanagement.dto.UserSummary;
 import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.UserRole;
 import com.example.usermanagement.exception.BusinessException;
 import com.example.usermanagement.mapper.RoleMapper;
 import com.example.usermanagement.mapper.UserRoleMapper;
+import com.example.usermanagement.security.UserPrincipalCache;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 角色权限管理服务
@@ -24,18 +54,56 @@ public class RoleService {
     @Autowired
     private UserRoleMapper userRoleMapper;
 
+    @Autowired
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${users.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
     /**
      * 获取所有角色列表
      */
     public List<Role> getAllRoles() {
-        return roleMapper.findAllRoles();
+        return roleCatalog.getAll();
+    }
+
+    /**
+     * 获取所有角色及各自的用户数
+     * 角色来自角色目录，用户数来自角色成员索引，不访问数据库
+     */
+    public List<RoleUsage> getAllRolesWithUsage() {
+        Map<Long, Integer> counts = roleMembershipIndex.counts();
+        List<Role> roles = roleCatalog.getAll();
+        List<RoleUsage> result = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            result.add(new RoleUsage(role, counts.getOrDefault(role.getId(), 0)));
+        }
+        return result;
     }
 
     /**
      * 根据ID获取角色
      */
     public Role getRoleById(Long roleId) {
-        Role role = roleMapper.selectById(roleId);
+        Role role = roleCatalog.findById(roleId);
         if (role == null) {
             throw new BusinessException("ROLE_NOT_FOUND", "角色不存在");
         }
@@ -46,7 +114,7 @@ public class RoleService {
      * 根据名称获取角色
      */
     public Role getRoleByName(String roleName) {
-        return roleMapper.findByName(roleName);
+        return roleCatalog.findByName(roleName);
     }
 
     /**
@@ -66,6 +134,8 @@ public class RoleService {
         role.setUpdatedAt(LocalDateTime.now());
 
         roleMapper.insert(role);
+        roleCatalog.invalidate();
+        userStatisticsService.markStale();
         return role;
     }
 
@@ -80,11 +150,13 @@ public class RoleService {
         }
 
         // 检查角色名称是否被其他角色使用
+        boolean renamed = false;
         if (name != null && !name.equals(role.getName())) {
             if (roleMapper.countByNameExcludingRole(name, roleId) > 0) {
                 throw new BusinessException("ROLE_NAME_EXISTS", "角色名称已存在");
             }
             role.setName(name);
+            renamed = true;
         }
 
         if (description != null) {
@@ -93,6 +165,14 @@ public class RoleService {
 
         role.setUpdatedAt(LocalDateTime.now());
         roleMapper.updateById(role);
+        roleCatalog.invalidate();
+
+        // 角色重命名会改变持有该角色用户的权限名称
+        if (renamed) {
+            securityVersionRegistry.bumpAll();
+            userPrincipalCache.evictAll();
+            userStatisticsService.markStale();
+        }
 
         return role;
     }
@@ -116,24 +196,49 @@ public class RoleService {
 
         // 删除角色
         roleMapper.deleteById(roleId);
+        roleCatalog.invalidate();
+        roleMembershipIndex.roleDeleted(roleId);
+        userStatisticsService.markStale();
     }
 
     /**
      * 为用户分配角色
+     * 与现有角色比较，只插入新增的、删除移除的关联；角色集合不变时不执行写操作
      */
     @Transactional
-    public void assignRolesToUser(Long userId, List<Long> roleIds) {
-        // 先删除用户现有的所有角色
-        userRoleMapper.deleteByUserId(userId);
+    public RoleAssignmentResult assignRolesToUser(Long userId, List<Long> roleIds) {
+        Set<Long> desired = roleIds != null ? new LinkedHashSet<>(roleIds) : new LinkedHashSet<>();
+        for (Long roleId : desired) {
+            if (roleCatalog.findById(roleId) == null) {
+                throw new BusinessException("ROLE_NOT_FOUND", "角色不存在");
+            }
+        }
+
+        Set<Long> current = new LinkedHashSet<>(userRoleMapper.findRoleIdsByUserId(userId));
+        List<Long> added = desired.stream()
+            .filter(roleId -> !current.contains(roleId))
+            .collect(Collectors.toList());
+        List<Long> removed = current.stream()
+            .filter(roleId -> !desired.contains(roleId))
+            .collect(Collectors.toList());
+        RoleAssignmentResult result = new RoleAssignmentResult(added, removed);
+        if (!result.isChanged()) {
+            return result;
+        }
 
-        // 分配新角色
-        if (roleIds != null && !roleIds.isEmpty()) {
-            List<UserRole> userRoles = roleIds.stream()
-                .map(roleId -> new UserRole(userId, roleId))
-                .collect(java.util.stream.Collectors.toList());
-            
-            userRoleMapper.batchInsert(userRoles);
+        if (!removed.isEmpty()) {
+            userRoleMapper.deleteByUserIdAndRoleIds(userId, removed);
+        }
+        if (!added.isEmpty()) {
+            userRoleMapper.insertRolesIfAbsent(userId, added, LocalDateTime.now());
         }
+
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+        roleMembershipIndex.rolesRemoved(userId, removed);
+        roleMembershipIndex.rolesAdded(userId, added);
+        userStatisticsService.rolesChanged(removed, added);
+        return result;
     }
 
     /**
@@ -142,7 +247,7 @@ public class RoleService {
     @Transactional
     public void addRoleToUser(Long userId, Long roleId) {
         // 检查角色是否存在
-        Role role = roleMapper.selectById(roleId);
+        Role role = roleCatalog.findById(roleId);
         if (role == null) {
             throw new BusinessException("ROLE_NOT_FOUND", "角色不存在");
         }
@@ -155,6 +260,10 @@ public class RoleService {
         // 添加角色
         UserRole userRole = new UserRole(userId, roleId);
         userRoleMapper.insert(userRole);
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+        roleMembershipIndex.rolesAdded(userId, Collections.singletonList(roleId));
+        userStatisticsService.rolesChanged(Collections.<Long>emptyList(), Collections.singletonList(roleId));
     }
 
     /**
@@ -169,6 +278,122 @@ public class RoleService {
 
         // 移除角色
         userRoleMapper.deleteByUserIdAndRoleId(userId, roleId);
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+        roleMembershipIndex.rolesRemoved(userId, Collections.singletonList(roleId));
+        userStatisticsService.rolesChanged(Collections.singletonList(roleId), Collections.<Long>emptyList());
+    }
+
+    /**
+     * 批量为用户添加角色
+     * 角色只校验一次；按批次执行，每批一条查询得到用户是否存在及是否已持有角色、一条多行插入。
+     * 重复id只处理一次，返回每个用户的处理结果；缓存、索引和统计只按实际插入的用户更新
+     */
+    @Transactional
+    public Map<Long, RoleMembershipOutcome> addUsersToRole(Long roleId, List<Long> userIds) {
+        getRoleById(roleId);
+
+        Map<Long, RoleMembershipOutcome> outcomes = new LinkedHashMap<>();
+        List<Long> addedIds = new ArrayList<>();
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size()));
+            Set<Long> existing = new HashSet<>();
+            Set<Long> members = new HashSet<>();
+            collectMemberships(roleId, chunk, existing, members);
+
+            List<Long> toAdd = new ArrayList<>();
+            for (Long userId : chunk) {
+                if (!existing.contains(userId)) {
+                    outcomes.put(userId, RoleMembershipOutcome.USER_NOT_FOUND);
+                } else if (members.contains(userId)) {
+                    outcomes.put(userId, RoleMembershipOutcome.ALREADY_MEMBER);
+                } else {
+                    outcomes.put(userId, RoleMembershipOutcome.ADDED);
+                    toAdd.add(userId);
+                }
+            }
+            if (!toAdd.isEmpty()) {
+                // 查询后被并发添加或删除的用户不在插入结果中，重新查询这些用户区分已持有和不存在
+                Set<Long> inserted = new HashSet<>(userRoleMapper.insertUsersIfAbsent(roleId, toAdd, now));
+                List<Long> skipped = new ArrayList<>();
+                for (Long userId : toAdd) {
+                    if (inserted.contains(userId)) {
+                        addedIds.add(userId);
+                    } else {
+                        skipped.add(userId);
+                    }
+                }
+                if (!skipped.isEmpty()) {
+                    Set<Long> stillExisting = new HashSet<>();
+                    collectMemberships(roleId, skipped, stillExisting, new HashSet<>());
+                    for (Long userId : skipped) {
+                        outcomes.put(userId, stillExisting.contains(userId)
+                                ? RoleMembershipOutcome.ALREADY_MEMBER : RoleMembershipOutcome.USER_NOT_FOUND);
+                    }
+                }
+            }
+        }
+
+        if (!addedIds.isEmpty()) {
+            addedIds.forEach(securityVersionRegistry::bump);
+            userPrincipalCache.evict(addedIds);
+            roleMembershipIndex.usersAdded(roleId, addedIds);
+            userStatisticsService.rolesChanged(Collections.<Long>emptyList(), Collections.nCopies(addedIds.size(), roleId));
+        }
+        return outcomes;
+    }
+
+    /**
+     * 批量移除用户的角色
+     * 按批次执行，每批一条查询、一条删除；重复id只处理一次，返回每个用户的处理结果；
+     * 缓存、索引和统计只按实际删除的用户更新
+     */
+    @Transactional
+    public Map<Long, RoleMembershipOutcome> removeUsersFromRole(Long roleId, List<Long> userIds) {
+        getRoleById(roleId);
+
+        Map<Long, RoleMembershipOutcome> outcomes = new LinkedHashMap<>();
+        List<Long> removedIds = new ArrayList<>();
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size()));
+            Set<Long> existing = new HashSet<>();
+            Set<Long> members = new HashSet<>();
+            collectMemberships(roleId, chunk, existing, members);
+
+            List<Long> toRemove = new ArrayList<>();
+            for (Long userId : chunk) {
+                if (!existing.contains(userId)) {
+                    outcomes.put(userId, RoleMembershipOutcome.USER_NOT_FOUND);
+                } else if (!members.contains(userId)) {
+                    outcomes.put(userId, RoleMembershipOutcome.NOT_MEMBER);
+                } else {
+                    outcomes.put(userId, RoleMembershipOutcome.REMOVED);
+                    toRemove.add(userId);
+                }
+            }
+            if (!toRemove.isEmpty()) {
+                // 查询后被并发移除的用户不在删除结果中，按未持有处理
+                Set<Long> deleted = new HashSet<>(userRoleMapper.deleteByRoleIdAndUserIds(roleId, toRemove));
+                for (Long userId : toRemove) {
+                    if (deleted.contains(userId)) {
+                        removedIds.add(userId);
+                    } else {
+                        outcomes.put(userId, RoleMembershipOutcome.NOT_MEMBER);
+                    }
+                }
+            }
+        }
+
+        if (!removedIds.isEmpty()) {
+            removedIds.forEach(securityVersionRegistry::bump);
+            userPrincipalCache.evict(removedIds);
+            roleMembershipIndex.usersRemoved(roleId, removedIds);
+            userStatisticsService.rolesChanged(Collections.nCopies(removedIds.size(), roleId), Collections.<Long>emptyList());
+        }
+        return outcomes;
     }
 
     /**
@@ -179,18 +404,65 @@ public class RoleService {
     }
 
     /**
-     * 获取拥有特定角色的用户ID列表
+     * 获取拥有特定角色的用户ID列表，按ID升序
      */
     public List<Long> getUserIdsByRole(Long roleId) {
-        return userRoleMapper.findUserIdsByRoleId(roleId);
+        return roleMembershipIndex.userIds(roleId);
+    }
+
+    /**
+     * 按游标分页获取持有角色的用户摘要
+     * 按用户ID升序，游标为上一页最后一个用户的ID；多取一条记录判断是否还有下一页，总数取自角色成员索引
+     */
+    public PageResponse<UserSummary> getRoleMembers(Long roleId, String cursor, int size) {
+        if (size <= 0) {
+            throw new BusinessException("INVALID_PAGE_SIZE", "每页条数必须大于0");
+        }
+        getRoleById(roleId);
+        Long afterUserId = decodeMemberCursor(cursor);
+
+        List<UserSummary> members = userRoleMapper.findMembersAfter(roleId, afterUserId, size + 1);
+        boolean hasNext = members.size() > size;
+        if (hasNext) {
+            members = members.subList(0, size);
+        }
+        String nextCursor = hasNext ? String.valueOf(members.get(members.size() - 1).getId()) : null;
+
+        PageResponse<UserSummary> response = PageResponse.ofCursor(members, roleMembershipIndex.count(roleId), size,
+            afterUserId != null, nextCursor);
+        response.setCountStrategy(CountStrategy.EXACT);
+        return response;
+    }
+
+    /**
+     * 以NDJSON流式获取持有角色的全部用户摘要
+     * 角色在调用时校验；返回的写出操作在只读事务中以游标逐行读取并写出，内存占用与成员数无关
+     */
+    public StreamingResponseBody streamRoleMembers(Long roleId) {
+        getRoleById(roleId);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        return output -> readOnlyTransaction.execute(transactionStatus -> {
+            try (Cursor<UserSummary> cursor = userRoleMapper.streamMembers(roleId)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+                for (UserSummary member : cursor) {
+                    writer.write(objectMapper.writeValueAsString(member));
+                    writer.write('\n');
+                }
+                writer.flush();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     /**
      * 检查用户是否有特定角色
      */
     public boolean userHasRole(Long userId, String roleName) {
-        List<Role> userRoles = roleMapper.findByUserId(userId);
-        return userRoles.stream().anyMatch(role -> role.getName().equals(roleName));
+        Role role = roleCatalog.findByName(roleName);
+        return role != null && roleMembershipIndex.contains(role.getId(), userId);
     }
 
     /**
@@ -204,7 +476,7 @@ public class RoleService {
      * 获取默认用户角色
      */
     public Role getDefaultUserRole() {
-        Role role = roleMapper.findDefaultUserRole();
+        Role role = roleCatalog.findByName("USER");
         if (role == null) {
             throw new BusinessException("DEFAULT_ROLE_NOT_FOUND", "默认用户角色不存在");
         }
@@ -215,7 +487,7 @@ public class RoleService {
      * 获取管理员角色
      */
     public Role getAdminRole() {
-        Role role = roleMapper.findAdminRole();
+        Role role = roleCatalog.findByName("ADMIN");
         if (role == null) {
             throw new BusinessException("ADMIN_ROLE_NOT_FOUND", "管理员角色不存在");
         }
@@ -226,23 +498,116 @@ public class RoleService {
      * 检查角色是否可以删除
      */
     public boolean canDeleteRole(Long roleId) {
-        return roleMapper.countUsersWithRole(roleId) == 0;
+        return roleMembershipIndex.count(roleId) == 0;
     }
 
     /**
      * 获取角色使用统计
      */
     public int getRoleUsageCount(Long roleId) {
-        return roleMapper.countUsersWithRole(roleId);
+        return roleMembershipIndex.count(roleId);
     }
 
     /**
      * 批量删除角色
+     * 一条查询得到各角色的用户数，一条DELETE删除其中未被使用的角色。
+     * partial为false时任一角色不存在或正在使用则不删除任何角色；为true时删除可删除的角色，其余在结果中列出
      */
     @Transactional
-    public void batchDeleteRoles(List<Long> roleIds) {
-        for (Long roleId : roleIds) {
-            deleteRole(roleId);
+    public RoleBatchDeleteResult batchDeleteRoles(List<Long> roleIds, boolean partial) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(roleIds));
+        Map<Long, RoleUserCount> usage = usageOf(distinctIds);
+
+        RoleBatchDeleteResult result = new RoleBatchDeleteResult();
+        List<Long> deletable = new ArrayList<>();
+        for (Long roleId : distinctIds) {
+            RoleUserCount roleUsage = usage.get(roleId);
+            if (roleUsage == null) {
+                result.getNotFoundRoleIds().add(roleId);
+            } else if (roleUsage.getUserCount() > 0) {
+                result.getBlockedRoles().add(roleUsage);
+            } else {
+                deletable.add(roleId);
+            }
+        }
+        if (!partial) {
+            checkAllDeletable(result);
+        }
+        if (deletable.isEmpty()) {
+            return result;
+        }
+
+        if (roleMapper.deleteUnusedByIds(deletable) < deletable.size()) {
+            // 检查之后有角色被分配给了用户，仍存在的角色即未删除的角色
+            Map<Long, RoleUserCount> remaining = usageOf(deletable);
+            for (Long roleId : deletable) {
+                if (remaining.containsKey(roleId)) {
+                    result.getBlockedRoles().add(remaining.get(roleId));
+                } else {
+                    result.getDeletedRoleIds().add(roleId);
+                }
+            }
+            if (!partial) {
+                checkAllDeletable(result);
+            }
+        } else {
+            result.getDeletedRoleIds().addAll(deletable);
+        }
+
+        if (!result.getDeletedRoleIds().isEmpty()) {
+            roleCatalog.invalidate();
+            result.getDeletedRoleIds().forEach(roleMembershipIndex::roleDeleted);
+            userStatisticsService.markStale();
+        }
+        return result;
+    }
+
+    /**
+     * 按角色ID索引的角色用户数，不存在的角色不在结果中
+     */
+    private Map<Long, RoleUserCount> usageOf(List<Long> roleIds) {
+        Map<Long, RoleUserCount> usage = new HashMap<>();
+        for (RoleUserCount roleUsage : roleMapper.countUsersByRoleIds(roleIds)) {
+            usage.put(roleUsage.getRoleId(), roleUsage);
+        }
+        return usage;
+    }
+
+    /**
+     * 有角色不存在或正在使用时抛出异常，事务回滚
+     */
+    private static void checkAllDeletable(RoleBatchDeleteResult result) {
+        if (!result.getNotFoundRoleIds().isEmpty()) {
+            throw new BusinessException("ROLE_NOT_FOUND", "角色不存在：" + result.getNotFoundRoleIds());
+        }
+        if (!result.getBlockedRoles().isEmpty()) {
+            String blocked = result.getBlockedRoles().stream()
+                .map(roleUsage -> roleUsage.getRoleName() + "（" + roleUsage.getUserCount() + " 个用户）")
+                .collect(Collectors.joining("、"));
+            throw new BusinessException("CANNOT_DELETE_ROLE_IN_USE", "角色正在使用中，无法删除：" + blocked);
+        }
+    }
+
+    /**
+     * 查询一批用户中存在的用户及其中已持有角色的用户
+     */
+    private void collectMemberships(Long roleId, List<Long> userIds, Set<Long> existing, Set<Long> members) {
+        for (UserRole membership : userRoleMapper.findMembershipsOfUsers(roleId, userIds)) {
+            existing.add(membership.getUserId());
+            if (membership.getRoleId() != null) {
+                members.add(membership.getUserId());
+            }
+        }
+    }
+
+    private static Long decodeMemberCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new BusinessException("INVALID_CURSOR", "分页游标无效");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.UserMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户名、邮箱占用过滤器
+ * 以布隆过滤器记录已被占用的用户名和邮箱，判定为未占用时一定可用，无需查询数据库；
+ * 判定为可能占用时由调用方查询数据库确认。启动时及定时从users表重建，新增和改名时写入；
+ * 删除用户无法从布隆过滤器移除，只会增加误判，下次重建后消除。
+ * 尚未加载时所有判定均为可能占用。
+ * 过滤器只在本节点内存中，多节点部署时其他节点新建的用户在下次重建前不会写入，可能被判定为未占用；
+ * 因此判定结果只用于提前拒绝和可用性查询，新增用户时仍以数据库唯一约束为准，冲突由调用方转换为业务异常
+ */
+@Component
+public class UserAvailabilityFilter implements MeterBinder {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${users.availability-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${users.availability-filter.min-capacity:10000}")
+    private int minCapacity;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private final Object lock = new Object();
+
+    /** 为null表示尚未加载；写入由lock保护 */
+    private volatile Filters filters;
+
+    /** 重建期间写入的用户名和邮箱，不在重建时为null；由lock保护 */
+    private List<String[]> pending;
+
+    /**
+     * 应用启动后加载过滤器
+     * 加载失败（如数据库尚未就绪）时保持未加载状态，由定时重建重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            // 定时重建时重试
+        }
+    }
+
+    /**
+     * 定时重建，清除已删除用户留下的误判，并按当前用户数重新确定容量
+     */
+    @Scheduled(fixedDelayString = "${users.availability-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${users.availability-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        warmUp();
+    }
+
+    /**
+     * 用户名是否一定未被占用，为false时需查询数据库确认
+     */
+    public boolean isUsernameFree(String username) {
+        Filters current = filters;
+        return current != null && username != null && !current.usernames.mightContain(username);
+    }
+
+    /**
+     * 邮箱是否一定未被占用，为false时需查询数据库确认
+     */
+    public boolean isEmailFree(String email) {
+        Filters current = filters;
+        return current != null && email != null && !current.emails.mightContain(email);
+    }
+
+    /**
+     * 记录被占用的用户名和邮箱，为null的值忽略
+     * 立即写入，事务回滚时只会增加误判；事务提交后再写入一次，保证重建期间提交的数据不会遗漏
+     */
+    public void add(String username, String email) {
+        String[] entry = {username, email};
+        apply(entry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(entry);
+                }
+            });
+        }
+    }
+
+    /**
+     * 记录新建的用户
+     */
+    public void userCreated(User user) {
+        add(user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * 过滤器占用的字节数
+     */
+    public long getMemoryBytes() {
+        Filters current = filters;
+        return current != null ? current.usernames.sizeInBytes() + current.emails.sizeInBytes() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("users.availability-filter.memory", this, UserAvailabilityFilter::getMemoryBytes)
+                .description("用户名、邮箱布隆过滤器占用的内存")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * 从数据库重建过滤器
+     * 容量取当前用户数的两倍（不小于最小容量），为重建前的新增留出余量；扫描期间写入的值在替换前补入新过滤器
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            synchronized (lock) {
+                pending = new ArrayList<>();
+            }
+
+            Filters loaded;
+            try {
+                long capacity = Math.max(minCapacity, userMapper.countUsers(null, null, null) * 2);
+                loaded = new Filters(capacity, falsePositiveRate);
+                scan(loaded);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    pending = null;
+                }
+                throw e;
+            }
+
+            synchronized (lock) {
+                pending.forEach(entry -> loaded.add(entry[0], entry[1]));
+                pending = null;
+                filters = loaded;
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void scan(Filters loaded) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.execute(transactionStatus -> {
+            try (Cursor<User> cursor = userMapper.streamUsernamesAndEmails()) {
+                for (User user : cursor) {
+                    loaded.add(user.getUsername(), user.getEmail());
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void apply(String[] entry) {
+        synchronized (lock) {
+            Filters current = filters;
+            if (current != null) {
+                current.add(entry[0], entry[1]);
+            }
+            if (pending != null) {
+                pending.add(entry);
+            }
+        }
+    }
+
+    /**
+     * 用户名和邮箱各自的过滤器
+     */
+    private static class Filters {
+
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        Filters(long capacity, double falsePositiveRate) {
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.add(username);
+            }
+            if (email != null) {
+                emails.add(email);
+            }
+        }
+    }
+
+    /**
+     * 布隆过滤器
+     * 位数m = -n·ln(p)/(ln2)²，哈希次数k = m/n·ln2；k个位置由两个64位哈希组合得到（h1 + i·h2）。
+     * 写入需由调用方串行化，读取无需加锁
+     */
+    static class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = Math.toIntExact(Math.max(1, (bits + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        void add(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                words.set(word, words.get(word) | (1L << bit));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+
+        /**
+         * 对字符串做FNV-1a哈希后再混合，使各位分布均匀
+         */
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        /**
+         * SplitMix64的终结混合函数
+         */
+        private static long mix(long h) {
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            return h ^ (h >>> 31);
+        }
+    }
+}
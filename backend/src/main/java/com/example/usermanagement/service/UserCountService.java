@@ -0,0 +1,125 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.CountStrategy;
+import com.example.usermanagement.dto.PageResponse;
+import com.example.usermanagement.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 用户列表总数统计服务
+ * 按请求指定的方式给出精确计数、按筛选条件缓存的计数或执行计划估算值
+ */
+@Service
+public class UserCountService implements MeterBinder {
+
+    /** 执行计划首行中的估算行数 */
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Value("${users.count-cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${users.count-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    /** 键为(search, status, roleId) */
+    private Cache<List<Object>, Long> counts;
+
+    /**
+     * 初始化缓存
+     */
+    @PostConstruct
+    public void init() {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 按指定方式统计符合条件的用户数
+     * 执行计划给不出估算值时（如H2）退回精确计数，结果中的方式为实际采用的方式；
+     * 只按角色筛选的精确计数和缓存计数直接取角色成员索引中的用户数
+     */
+    public Count count(CountStrategy strategy, String search, Integer status, Long roleId) {
+        if ((strategy == CountStrategy.EXACT || strategy == CountStrategy.CACHED)
+                && search == null && status == null && roleId != null) {
+            return new Count(roleMembershipIndex.count(roleId), CountStrategy.EXACT);
+        }
+        switch (strategy) {
+            case NONE:
+                return new Count(PageResponse.TOTAL_UNKNOWN, CountStrategy.NONE);
+            case CACHED:
+                Long cached = counts.get(Arrays.<Object>asList(search, status, roleId),
+                        key -> userMapper.countUsers(search, status, roleId));
+                return new Count(cached, CountStrategy.CACHED);
+            case ESTIMATED:
+                Long estimated = estimate(search, status, roleId);
+                if (estimated != null) {
+                    return new Count(estimated, CountStrategy.ESTIMATED);
+                }
+                return new Count(userMapper.countUsers(search, status, roleId), CountStrategy.EXACT);
+            default:
+                return new Count(userMapper.countUsers(search, status, roleId), CountStrategy.EXACT);
+        }
+    }
+
+    /**
+     * 读取执行计划首行的估算行数，无法解析时返回null
+     */
+    private Long estimate(String search, Integer status, Long roleId) {
+        List<String> plan = userMapper.explainUsers(search, status, roleId);
+        if (plan == null || plan.isEmpty() || plan.get(0) == null) {
+            return null;
+        }
+        Matcher matcher = PLAN_ROWS.matcher(plan.get(0));
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, counts, "userListCounts");
+    }
+
+    /**
+     * 统计结果
+     */
+    public static class Count {
+
+        private final long total;
+        private final CountStrategy strategy;
+
+        public Count(long total, CountStrategy strategy) {
+            this.total = total;
+            this.strategy = strategy;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public CountStrategy getStrategy() {
+            return strategy;
+        }
+    }
+}
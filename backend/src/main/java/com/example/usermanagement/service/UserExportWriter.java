@@ -0,0 +1,108 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.dto.UserResponse;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户导出文件的逐行写入器
+ * CSV的roles列为分号分隔的角色ID，与导入格式一致，另附role_names列；NDJSON每行一个用户响应对象
+ */
+public class UserExportWriter {
+
+    private static final String CSV_HEADER = "id,username,email,status,roles,role_names,created_at,updated_at,last_login_at";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private final UserFileFormat format;
+    private final ObjectMapper objectMapper;
+
+    public UserExportWriter(OutputStream output, UserFileFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == UserFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * 写入一个用户
+     */
+    public void write(User user) throws IOException {
+        if (format == UserFileFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(UserResponse.from(user)));
+            writer.write('\n');
+            return;
+        }
+
+        StringBuilder roleIds = new StringBuilder();
+        StringBuilder roleNames = new StringBuilder();
+        List<Role> roles = user.getRoles();
+        if (roles != null) {
+            for (Role role : roles) {
+                if (roleIds.length() > 0) {
+                    roleIds.append(';');
+                    roleNames.append(';');
+                }
+                roleIds.append(role.getId());
+                roleNames.append(role.getName());
+            }
+        }
+        writer.write(String.valueOf(user.getId()));
+        writer.write(',');
+        writer.write(csv(user.getUsername()));
+        writer.write(',');
+        writer.write(csv(user.getEmail()));
+        writer.write(',');
+        writer.write(user.getStatus() != null ? user.getStatus().toString() : "");
+        writer.write(',');
+        writer.write(roleIds.toString());
+        writer.write(',');
+        writer.write(csv(roleNames.toString()));
+        writer.write(',');
+        writer.write(time(user.getCreatedAt()));
+        writer.write(',');
+        writer.write(time(user.getUpdatedAt()));
+        writer.write(',');
+        writer.write(time(user.getLastLoginAt()));
+        writer.write('\n');
+    }
+
+    /**
+     * 把缓冲区中的内容写出，不关闭输出流
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * 按RFC 4180转义，字段含逗号、引号或换行时加引号
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String time(LocalDateTime value) {
+        return value != null ? value.toString() : "";
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.CreateUserRequest;
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 用户导入文件的逐行读取器
+ * CSV首行为表头，必须包含username、email、password列，可选status、roles列，多个角色ID以分号分隔；
+ * NDJSON每行一个创建用户请求。每次只读取一条记录，不把整个文件加载到内存
+ */
+public class UserImportReader {
+
+    private final BufferedReader reader;
+    private final UserFileFormat format;
+    private final ObjectMapper objectMapper;
+
+    /** CSV列名到列序号的映射 */
+    private Map<String, Integer> columns;
+
+    /** 已读取的物理行数 */
+    private long lineNumber;
+
+    public UserImportReader(BufferedReader reader, UserFileFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == UserFileFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    /**
+     * 读取下一条记录，文件结束时返回null；空行跳过
+     */
+    public Row next() throws IOException {
+        return format == UserFileFormat.CSV ? nextCsvRow() : nextJsonRow();
+    }
+
+    private Row nextJsonRow() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                return new Row(lineNumber, objectMapper.readValue(line, CreateUserRequest.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, "JSON格式错误");
+            }
+        }
+        return null;
+    }
+
+    private Row nextCsvRow() throws IOException {
+        List<String> fields;
+        long line;
+        do {
+            line = lineNumber + 1;
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).trim().isEmpty());
+
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(field(fields, "username"));
+        request.setEmail(field(fields, "email"));
+        request.setPassword(field(fields, "password"));
+        try {
+            String status = field(fields, "status");
+            if (status != null && !status.isEmpty()) {
+                request.setStatus(Integer.valueOf(status));
+            }
+            List<Long> roles = new ArrayList<>();
+            String roleIds = field(fields, "roles");
+            if (roleIds != null) {
+                for (String roleId : roleIds.split(";")) {
+                    if (!roleId.trim().isEmpty()) {
+                        roles.add(Long.valueOf(roleId.trim()));
+                    }
+                }
+            }
+            request.setRoles(roles);
+        } catch (NumberFormatException e) {
+            return new Row(line, request, "状态或角色ID不是数字");
+        }
+        return new Row(line, request, null);
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                // 去掉部分编辑器保存UTF-8文件时写入的BOM
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        for (String required : new String[]{"username", "email", "password"}) {
+            if (!columns.containsKey(required)) {
+                throw new BusinessException("INVALID_IMPORT_HEADER", "CSV表头缺少列: " + required);
+            }
+        }
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index != null && index < fields.size() ? fields.get(index).trim() : null;
+    }
+
+    /**
+     * 按RFC 4180读取一条CSV记录，引号内的字段可以包含逗号、换行和转义的双引号
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                lineNumber++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        lineNumber++;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 一条导入记录，解析失败时error不为空
+     */
+    public static class Row {
+
+        private final long line;
+        private final CreateUserRequest request;
+        private final String error;
+
+        public Row(long line, CreateUserRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public CreateUserRequest getRequest() {
+            return request;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.CreateUserRequest;
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.dto.UserImportError;
+import com.example.usermanagement.dto.UserImportResult;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.entity.UserRole;
+import com.example.usermanagement.exception.BusinessException;
+import com.example.usermanagement.mapper.UserMapper;
+import com.example.usermanagement.mapper.UserRoleMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 用户批量导入服务
+ * 逐条读取导入文件，校验通过的记录按批处理：每批一次查询用户名和邮箱冲突、在独立的有界线程池中并行哈希密码、
+ * 在一个事务中以多行INSERT写入用户和角色关联。出错的记录写入错误报告，不影响其他记录。
+ * 文件内重复只在当前批内比较，与之前批次重复的记录因前一批已提交，由数据库冲突查询发现；
+ * 错误明细最多保留users.import.max-errors条，超出的只计入错误总数，内存占用只与批大小有关
+ */
+@Service
+public class UserImportService {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${users.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${users.import.hashing-threads:0}")
+    private int hashingThreads;
+
+    @Value("${users.import.hashing-queue-capacity:1000}")
+    private int hashingQueueCapacity;
+
+    @Value("${users.import.max-errors:1000}")
+    private int maxErrors;
+
+    /** 与登录使用的密码哈希线程池分开，导入时不挤占登录的计算资源 */
+    private ThreadPoolExecutor hashingPool;
+
+    /**
+     * 初始化线程池，未配置线程数时使用一半的处理器
+     * 等待队列有上限，队列满时由提交任务的导入线程自己计算哈希，多个并发导入不会无限堆积任务
+     */
+    @PostConstruct
+    public void init() {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        hashingPool.shutdown();
+        hashingPool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 导入用户
+     */
+    public UserImportResult importUsers(InputStream input, UserFileFormat format) throws IOException {
+        UserImportReader reader = new UserImportReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+        Set<Long> roleIds = roleCatalog.getAll().stream().map(Role::getId).collect(Collectors.toSet());
+        Set<String> chunkUsernames = new HashSet<>();
+        Set<String> chunkEmails = new HashSet<>();
+
+        UserImportResult result = new UserImportResult();
+        List<UserImportReader.Row> chunk = new ArrayList<>();
+        UserImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            String error = validate(row, roleIds);
+            if (error == null) {
+                CreateUserRequest request = row.getRequest();
+                if (chunkUsernames.contains(request.getUsername())) {
+                    error = "用户名在文件中重复";
+                } else if (chunkEmails.contains(request.getEmail())) {
+                    error = "邮箱在文件中重复";
+                } else {
+                    chunkUsernames.add(request.getUsername());
+                    chunkEmails.add(request.getEmail());
+                    chunk.add(row);
+                }
+            }
+            if (error != null) {
+                addError(result, row, error);
+            }
+
+            if (chunk.size() >= chunkSize) {
+                importChunk(chunk, result);
+                chunk = new ArrayList<>();
+                chunkUsernames.clear();
+                chunkEmails.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        return result;
+    }
+
+    /**
+     * 校验一条记录，通过时返回null
+     */
+    private String validate(UserImportReader.Row row, Set<Long> roleIds) {
+        if (row.getError() != null) {
+            return row.getError();
+        }
+        CreateUserRequest request = row.getRequest();
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("；"));
+        }
+        if (request.getStatus() == null || (request.getStatus() != 0 && request.getStatus() != 1)) {
+            return "状态只能为0或1";
+        }
+        for (Long roleId : request.getRoles()) {
+            if (!roleIds.contains(roleId)) {
+                return "角色不存在: " + roleId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 导入一批已通过校验的记录
+     */
+    private void importChunk(List<UserImportReader.Row> rows, UserImportResult result) {
+        List<String> usernames = rows.stream().map(row -> row.getRequest().getUsername()).collect(Collectors.toList());
+        List<String> emails = rows.stream().map(row -> row.getRequest().getEmail()).collect(Collectors.toList());
+        Set<String> existingUsernames = new HashSet<>(userMapper.findExistingUsernames(usernames));
+        Set<String> existingEmails = new HashSet<>(userMapper.findExistingEmails(emails));
+
+        List<UserImportReader.Row> pending = new ArrayList<>();
+        for (UserImportReader.Row row : rows) {
+            if (existingUsernames.contains(row.getRequest().getUsername())) {
+                addError(result, row, "用户名已存在");
+            } else if (existingEmails.contains(row.getRequest().getEmail())) {
+                addError(result, row, "邮箱已被注册");
+            } else {
+                pending.add(row);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<User> users = toUsers(pending, result);
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            insert(users);
+            result.setImportedCount(result.getImportedCount() + users.size());
+        } catch (DataIntegrityViolationException e) {
+            // 查询冲突之后有并发创建的同名用户或角色被删除时整批回滚，逐条重试找出失败的记录
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    insert(Collections.singletonList(users.get(i)));
+                    result.setImportedCount(result.getImportedCount() + 1);
+                } catch (DataIntegrityViolationException failure) {
+                    addError(result, pending.get(i), describeFailure(users.get(i), failure));
+                }
+            }
+        }
+    }
+
+    /**
+     * 说明单条记录写入失败的原因：用户名或邮箱冲突、角色在校验后被删除，其他约束违反时给出数据库的原因
+     */
+    private String describeFailure(User user, DataIntegrityViolationException failure) {
+        RuntimeException mapped = UserUniqueness.duplicateUser(userAvailabilityFilter, userMapper, user, failure);
+        if (mapped instanceof BusinessException) {
+            return mapped.getMessage();
+        }
+        for (Role role : user.getRoles()) {
+            if (roleCatalog.findById(role.getId()) == null) {
+                return "角色不存在: " + role.getId();
+            }
+        }
+        return "写入失败: " + failure.getMostSpecificCause().getMessage();
+    }
+
+    /**
+     * 并行哈希密码并构造用户
+     * 哈希失败的记录写入错误报告并从rows中移除，返回的用户与剩余的rows一一对应
+     */
+    private List<User> toUsers(List<UserImportReader.Row> rows, UserImportResult result) {
+        List<CompletableFuture<String>> passwords = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.encode(row.getRequest().getPassword()), hashingPool))
+                .collect(Collectors.toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = new ArrayList<>();
+        Iterator<UserImportReader.Row> remaining = rows.iterator();
+        for (CompletableFuture<String> password : passwords) {
+            UserImportReader.Row row = remaining.next();
+            String encoded;
+            try {
+                encoded = password.join();
+            } catch (CompletionException | CancellationException e) {
+                addError(result, row, "密码处理失败");
+                remaining.remove();
+                continue;
+            }
+            CreateUserRequest request = row.getRequest();
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setEmail(request.getEmail());
+            user.setPassword(encoded);
+            user.setStatus(request.getStatus());
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            List<Role> roles = new ArrayList<>();
+            for (Long roleId : new LinkedHashSet<>(request.getRoles())) {
+                Role role = new Role();
+                role.setId(roleId);
+                roles.add(role);
+            }
+            user.setRoles(roles);
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * 在一个事务中写入用户和角色关联
+     */
+    private void insert(List<User> users) {
+        transactionTemplate.execute(status -> {
+            userMapper.batchInsert(users);
+
+            List<UserRole> userRoles = new ArrayList<>();
+            for (User user : users) {
+                for (Role role : user.getRoles()) {
+                    UserRole userRole = new UserRole();
+                    userRole.setUserId(user.getId());
+                    userRole.setRoleId(role.getId());
+                    userRole.setCreatedAt(user.getCreatedAt());
+                    userRoles.add(userRole);
+                }
+            }
+            userRoleMapper.batchInsert(userRoles);
+            users.forEach(roleMembershipIndex::userCreated);
+            users.forEach(userAvailabilityFilter::userCreated);
+            users.forEach(userStatisticsService::userCreated);
+            return null;
+        });
+    }
+
+    /**
+     * 记录一条错误，明细达到上限后只计数
+     */
+    private void addError(UserImportResult result, UserImportReader.Row row, String message) {
+        result.setErrorCount(result.getErrorCount() + 1);
+        if (result.getErrors().size() >= maxErrors) {
+            return;
+        }
+        String username = row.getRequest() != null ? row.getRequest().getUsername() : null;
+        result.getErrors().add(new UserImportError(row.getLine(), username, message));
+    }
+}
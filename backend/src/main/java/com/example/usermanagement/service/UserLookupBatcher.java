@@ -0,0 +1,154 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.UserMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按ID查询用户的合并器
+ * 同一时间窗口内到达的单个用户查询合并为一条IN查询，批次达到上限时立即执行；
+ * 查询不在调用方的事务中执行，只能看到已提交的数据；
+ * 同一ID的多个等待者得到同一个User实例，调用方只能读取，不得修改
+ */
+@Component
+public class UserLookupBatcher implements MeterBinder {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${users.lookup.batch-window-ms:2}")
+    private long batchWindowMillis;
+
+    @Value("${users.lookup.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${users.lookup.threads:2}")
+    private int threads;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private final Object lock = new Object();
+
+    /** 等待查询的用户ID及各自的调用方；由lock保护 */
+    private Map<Long, List<CompletableFuture<User>>> pending = new LinkedHashMap<>();
+
+    /** 是否已安排窗口结束时的查询；由lock保护 */
+    private boolean flushScheduled;
+
+    private volatile DistributionSummary batchSizeSummary;
+
+    /**
+     * 初始化执行查询的线程池
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads,
+                runnable -> new Thread(runnable, "user-lookup-" + threadNumber.incrementAndGet()));
+    }
+
+    /**
+     * 关闭线程池，不再等待时间窗口，立即查询已累积的用户并等待进行中的查询完成
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.shutdown();
+        flush();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 查询用户（含角色），用户不存在时返回null
+     */
+    public User find(Long userId) {
+        try {
+            return load(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 把用户ID加入当前批次，返回在批次查询完成后得到用户的Future，用户不存在时结果为null
+     */
+    public CompletableFuture<User> load(Long userId) {
+        CompletableFuture<User> future = new CompletableFuture<>();
+        Map<Long, List<CompletableFuture<User>>> full = null;
+        synchronized (lock) {
+            pending.computeIfAbsent(userId, id -> new ArrayList<>(1)).add(future);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            Map<Long, List<CompletableFuture<User>>> batch = full;
+            executor.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.batchSizeSummary = DistributionSummary.builder("users.lookup.batch-size")
+                .description("合并后单条查询包含的用户数")
+                .register(registry);
+    }
+
+    /**
+     * 时间窗口结束，查询窗口内累积的用户
+     */
+    private void flush() {
+        Map<Long, List<CompletableFuture<User>>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Map<Long, List<CompletableFuture<User>>> batch) {
+        DistributionSummary summary = batchSizeSummary;
+        if (summary != null) {
+            summary.record(batch.size());
+        }
+        Map<Long, User> users = new HashMap<>(batch.size() * 2);
+        try {
+            for (User user : userMapper.findByIdsWithRoles(batch.keySet())) {
+                users.put(user.getId(), user);
+            }
+        } catch (Throwable e) {
+            batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+            return;
+        }
+        batch.forEach((userId, futures) -> futures.forEach(future -> future.complete(users.get(userId))));
+    }
+}
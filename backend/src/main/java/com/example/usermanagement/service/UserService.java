@@ -8,13 +8,25 @@ import com.example.usermanagement.entity.UserRole;
 import com.example.usermanagement.exception.BusinessException;
 import com.example.usermanagement.mapper.UserMapper;
 import com.example.usermanagement.mapper.UserRoleMapper;
+import com.example.usermanagement.security.UserPrincipalCache;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,6 +46,42 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserCountService userCountService;
+
+    @Autowired
+    private UserStatisticsService userStatisticsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RoleCatalog roleCatalog;
+
+    @Autowired
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Autowired
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @Autowired
+    private UserLookupBatcher userLookupBatcher;
+
+    @Value("${users.search.min-length:3}")
+    private int searchMinLength;
+
+    @Value("${users.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
     /**
      * 获取用户个人信息
      */
@@ -85,6 +133,9 @@ public class UserService {
         if (updated) {
             user.setUpdatedAt(LocalDateTime.now());
             userMapper.updateById(user);
+            userAvailabilityFilter.add(user.getUsername(), user.getEmail());
+            securityVersionRegistry.bump(userId);
+            userPrincipalCache.evict(userId);
         }
 
         // 返回更新后的用户信息
@@ -94,8 +145,8 @@ public class UserService {
 
     /**
      * 修改密码
+     * 不开启事务，密码校验和哈希期间不占用数据库连接，最终只执行一条更新语句
      */
-    @Transactional
     public void changePassword(Long userId, ChangePasswordRequest request) {
         User user = userMapper.selectById(userId);
         if (user == null) {
@@ -110,31 +161,106 @@ public class UserService {
         // 更新密码
         String encodedNewPassword = passwordEncoder.encode(request.getNewPassword());
         userMapper.updatePassword(userId, encodedNewPassword, LocalDateTime.now());
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
     }
 
     /**
      * 获取用户详情（管理员功能）
      */
     public UserResponse getUserById(Long userId) {
-        User user = userMapper.findByIdWithRoles(userId);
+        User user = userLookupBatcher.find(userId);
         if (user == null) {
             throw new BusinessException("USER_NOT_FOUND", "用户不存在");
         }
-        return UserResponse.from(user);
+        return toResponse(user);
+    }
+
+    /**
+     * 按ID批量获取用户详情（管理员功能）
+     * 每批ID以一条语句查询用户及角色，结果按请求的ID顺序排列，不存在的ID不返回
+     */
+    public List<UserResponse> lookupUsers(List<Long> userIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<Long, User> users = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size()));
+            for (User user : userMapper.findByIdsWithRoles(chunk)) {
+                users.put(user.getId(), user);
+            }
+        }
+        List<UserResponse> responses = new ArrayList<>(users.size());
+        for (Long userId : distinctIds) {
+            User user = users.get(userId);
+            if (user != null) {
+                responses.add(toResponse(user));
+            }
+        }
+        return responses;
     }
 
     /**
      * 分页查询用户列表（管理员功能）
+     * 精确计数由分页插件执行，其余方式及只按角色筛选的精确计数由UserCountService统计，分页插件不再计数；
+     * 有搜索关键字时按相关度排序，与游标分页的(created_at, id)顺序不一致，不返回游标
      */
-    public PageResponse<UserResponse> getUserList(int page, int size, String search, Integer status, Long roleId) {
+    public PageResponse<UserResponse> getUserList(int page, int size, String search, Integer status, Long roleId,
+                                                  CountStrategy countStrategy) {
+        search = normalizeSearch(search);
         Page<User> pageParam = new Page<>(page, size);
+        UserCountService.Count count = null;
+        if (countStrategy == CountStrategy.EXACT && (search != null || status != null || roleId == null)) {
+            pageParam.setCountId("countUsers");
+        } else {
+            pageParam.setSearchCount(false);
+            count = userCountService.count(countStrategy, search, status, roleId);
+        }
         IPage<User> userPage = userMapper.findUsersWithPagination(pageParam, search, status, roleId);
 
         List<UserResponse> userResponses = userPage.getRecords().stream()
-                .map(UserResponse::from)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
 
-        return PageResponse.of(userResponses, userPage.getTotal(), (int) userPage.getCurrent() - 1, (int) userPage.getSize());
+        PageResponse<UserResponse> response = PageResponse.of(userResponses,
+                count != null ? count.getTotal() : userPage.getTotal(),
+                (int) userPage.getCurrent() - 1, (int) userPage.getSize());
+        response.setCountStrategy(count != null ? count.getStrategy() : CountStrategy.EXACT);
+        // 附带游标，后续页可改用游标分页
+        if (search == null && response.isHasNext() && !userPage.getRecords().isEmpty()) {
+            response.setNextCursor(cursorOf(userPage.getRecords().get(userPage.getRecords().size() - 1)));
+        }
+        return response;
+    }
+
+    /**
+     * 按游标分页查询用户列表（管理员功能）
+     * 多取一条记录判断是否还有下一页；计数方式为NONE时不执行计数语句
+     */
+    public PageResponse<UserResponse> getUserListByCursor(String cursor, int size, String search, Integer status,
+                                                          Long roleId, CountStrategy countStrategy) {
+        if (size <= 0) {
+            throw new BusinessException("INVALID_PAGE_SIZE", "每页条数必须大于0");
+        }
+        search = normalizeSearch(search);
+        PageCursor after = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+
+        List<User> users = userMapper.findUsersAfterCursor(search, status, roleId,
+                after != null ? after.getCreatedAt() : null, after != null ? after.getId() : null, size + 1);
+        boolean hasNext = users.size() > size;
+        if (hasNext) {
+            users = users.subList(0, size);
+        }
+
+        List<UserResponse> userResponses = users.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+        UserCountService.Count count = userCountService.count(countStrategy, search, status, roleId);
+        String nextCursor = hasNext ? cursorOf(users.get(users.size() - 1)) : null;
+
+        PageResponse<UserResponse> response = PageResponse.ofCursor(userResponses, count.getTotal(), size,
+                after != null, nextCursor);
+        response.setCountStrategy(count.getStrategy());
+        return response;
     }
 
     /**
@@ -153,6 +279,9 @@ public class UserService {
         }
 
         userMapper.updateStatus(userId, status, LocalDateTime.now());
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+        userStatisticsService.statusChanged(user.getStatus(), status);
     }
 
     /**
@@ -171,43 +300,88 @@ public class UserService {
         }
 
         // 删除用户角色关联
+        List<Long> roleIds = userRoleMapper.findRoleIdsByUserId(userId);
         userRoleMapper.deleteByUserId(userId);
         
         // 删除用户
         userMapper.deleteById(userId);
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+        roleMembershipIndex.rolesRemoved(userId, roleIds);
+        userStatisticsService.userDeleted(user, roleIds);
     }
 
     /**
      * 批量更新用户状态（管理员功能）
+     * 按批次执行，每批一条查询锁定现有用户、一条UPDATE；重复id只处理一次，不存在的id在结果中单独列出
      */
     @Transactional
-    public void batchUpdateUserStatus(List<Long> userIds, Integer status, Long currentUserId) {
+    public BatchUpdateResult batchUpdateUserStatus(List<Long> userIds, Integer status, Long currentUserId) {
         // 检查是否包含当前用户
         if (userIds.contains(currentUserId) && status == 0) {
             throw new BusinessException("CANNOT_DISABLE_SELF", "不能禁用自己的账户");
         }
 
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        List<Long> updatedIds = new ArrayList<>();
+        List<Long> notFoundIds = new ArrayList<>();
+        long enabledDelta = 0;
         LocalDateTime now = LocalDateTime.now();
-        for (Long userId : userIds) {
-            userMapper.updateStatus(userId, status, now);
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size()));
+            Map<Long, Integer> currentStatuses = new HashMap<>();
+            for (User user : userMapper.findStatusesForUpdate(chunk)) {
+                currentStatuses.put(user.getId(), user.getStatus());
+            }
+
+            List<Long> existingIds = new ArrayList<>();
+            for (Long userId : chunk) {
+                if (currentStatuses.containsKey(userId)) {
+                    existingIds.add(userId);
+                    enabledDelta += enabledFlag(status) - enabledFlag(currentStatuses.get(userId));
+                } else {
+                    notFoundIds.add(userId);
+                }
+            }
+            if (!existingIds.isEmpty()) {
+                userMapper.batchUpdateStatus(existingIds, status, now);
+                updatedIds.addAll(existingIds);
+            }
         }
+
+        updatedIds.forEach(securityVersionRegistry::bump);
+        userPrincipalCache.evict(updatedIds);
+        userStatisticsService.enabledChanged(enabledDelta);
+        return new BatchUpdateResult(updatedIds, notFoundIds);
+    }
+
+    /**
+     * 导出用户（管理员功能）
+     * 参数在调用时校验；返回的写出操作在只读事务中以游标逐行读取并写出，内存占用与导出行数无关
+     */
+    public StreamingResponseBody exportUsers(UserFileFormat format, String search, Integer status, Long roleId) {
+        String keyword = normalizeSearch(search);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        return output -> readOnlyTransaction.execute(transactionStatus -> {
+            try (Cursor<User> cursor = userMapper.streamUsers(keyword, status, roleId)) {
+                UserExportWriter writer = new UserExportWriter(output, format, objectMapper);
+                for (User user : cursor) {
+                    writer.write(user);
+                }
+                writer.flush();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     /**
      * 获取用户统计信息
      */
     public Map<String, Object> getUserStatistics() {
-        long totalUsers = userMapper.getTotalCount();
-        long enabledUsers = userMapper.getEnabledUserCount();
-        long disabledUsers = userMapper.getDisabledUserCount();
-
-        Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalUsers", totalUsers);
-        statistics.put("enabledUsers", enabledUsers);
-        statistics.put("disabledUsers", disabledUsers);
-        statistics.put("enabledPercentage", totalUsers > 0 ? (double) enabledUsers / totalUsers * 100 : 0);
-
-        return statistics;
+        return userStatisticsService.getStatistics();
     }
 
     /**
@@ -219,45 +393,43 @@ public class UserService {
 
     /**
      * 检查用户名是否可用
+     * 过滤器判定一定未被占用时不查询数据库
      */
     public boolean isUsernameAvailable(String username, Long excludeUserId) {
-        if (excludeUserId != null) {
-            User existingUser = userMapper.selectOne(
-                new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<User>()
-                    .eq("username", username)
-                    .ne("id", excludeUserId)
-            );
-            return existingUser == null;
-        } else {
-            return userMapper.countByUsername(username) == 0;
+        if (excludeUserId == null) {
+            return !UserUniqueness.isUsernameTaken(userAvailabilityFilter, userMapper, username);
         }
+        if (userAvailabilityFilter.isUsernameFree(username)) {
+            return true;
+        }
+        User existingUser = userMapper.selectOne(
+            new com.baomidou.mybatisplus.core.conditions.query.QueryWrapper<User>()
+                .eq("username", username)
+                .ne("id", excludeUserId)
+        );
+        return existingUser == null;
     }
 
     /**
      * 检查邮箱是否可用
+     * 过滤器判定一定未被占用时不查询数据库
      */
     public boolean isEmailAvailable(String email, Long excludeUserId) {
-        if (excludeUserId != null) {
-            return userMapper.countByEmailExcludingUser(email, excludeUserId) == 0;
-        } else {
-            return userMapper.countByEmail(email) == 0;
+        if (excludeUserId == null) {
+            return !UserUniqueness.isEmailTaken(userAvailabilityFilter, userMapper, email);
         }
+        return userAvailabilityFilter.isEmailFree(email)
+                || userMapper.countByEmailExcludingUser(email, excludeUserId) == 0;
     }
     
     /**
      * 创建新用户（管理员功能）
+     * 密码在事务外完成哈希，事务只包含写入操作
      */
-    @Transactional
     public UserResponse createUser(CreateUserRequest request, Long creatorId) {
-        // 检查用户名是否已存在
-        if (userMapper.countByUsername(request.getUsername()) > 0) {
-            throw new BusinessException("USERNAME_EXISTS", "用户名已存在");
-        }
-
-        // 检查邮箱是否已被注册
-        if (userMapper.countByEmail(request.getEmail()) > 0) {
-            throw new BusinessException("EMAIL_EXISTS", "邮箱已被注册");
-        }
+        // 检查用户名和邮箱是否已被占用
+        UserUniqueness.checkAvailable(userAvailabilityFilter, userMapper,
+                request.getUsername(), request.getEmail());
 
         // 创建新用户
         User user = new User();
@@ -268,28 +440,38 @@ public class UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
-        // 保存用户
-        userMapper.insert(user);
-
-        // 分配角色
-        for (Long roleId : request.getRoles()) {
-            UserRole userRole = new UserRole();
-            userRole.setUserId(user.getId());
-            userRole.setRoleId(roleId);
-            userRole.setCreatedAt(LocalDateTime.now());
-            userRoleMapper.insert(userRole);
+        try {
+            return transactionTemplate.execute(status -> {
+                // 保存用户
+                userMapper.insert(user);
+
+                // 分配角色
+                for (Long roleId : request.getRoles()) {
+                    UserRole userRole = new UserRole();
+                    userRole.setUserId(user.getId());
+                    userRole.setRoleId(roleId);
+                    userRole.setCreatedAt(LocalDateTime.now());
+                    userRoleMapper.insert(userRole);
+                }
+
+                // 获取完整用户信息（包含角色）
+                User savedUser = userMapper.findByIdWithRoles(user.getId());
+                roleMembershipIndex.userCreated(savedUser);
+                userAvailabilityFilter.userCreated(savedUser);
+                userStatisticsService.userCreated(savedUser);
+
+                return UserResponse.from(savedUser);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 检查之后有并发创建或其他节点刚创建的同名用户
+            throw UserUniqueness.duplicateUser(userAvailabilityFilter, userMapper, user, e);
         }
-
-        // 获取完整用户信息（包含角色）
-        User savedUser = userMapper.findByIdWithRoles(user.getId());
-        
-        return UserResponse.from(savedUser);
     }
     
     /**
      * 重置用户密码（管理员功能）
+     * 不开启事务，密码哈希期间不占用数据库连接
      */
-    @Transactional
     public void resetUserPassword(Long userId, String newPassword, Long adminId) {
         // 检查是否尝试重置自己的密码（应该使用修改密码功能）
         if (userId.equals(adminId)) {
@@ -304,5 +486,41 @@ public class UserService {
         // 更新密码
         String encodedNewPassword = passwordEncoder.encode(newPassword);
         userMapper.updatePassword(userId, encodedNewPassword, LocalDateTime.now());
+        securityVersionRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
+    }
+
+    /**
+     * 规范化搜索关键字
+     * 空白视为不搜索；短于三元组长度的关键字无法利用索引，直接拒绝
+     */
+    private String normalizeSearch(String search) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String keyword = search.trim();
+        if (keyword.length() < searchMinLength) {
+            throw new BusinessException("SEARCH_TOO_SHORT", "搜索关键字至少需要" + searchMinLength + "个字符");
+        }
+        return keyword;
+    }
+
+    /**
+     * 转换为响应对象，角色替换为角色目录中的共享实例，同一页中的用户不再各自持有角色副本
+     * 不修改用户实体：合并查询的结果由等待同一ID的多个请求共享
+     */
+    private UserResponse toResponse(User user) {
+        return UserResponse.from(user, roleCatalog.intern(user.getRoles()));
+    }
+
+    /**
+     * 以用户的(created_at, id)生成分页游标
+     */
+    private String cursorOf(User user) {
+        return new PageCursor(user.getCreatedAt(), user.getId()).encode();
+    }
+
+    private static int enabledFlag(Integer status) {
+        return status != null && status == 1 ? 1 : 0;
     }
-}
\ No newline at end of file
+}
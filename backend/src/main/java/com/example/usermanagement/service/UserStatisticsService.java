@@ -0,0 +1,282 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.DailyCount;
+import com.example.usermanagement.dto.RoleUserCount;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.RoleMapper;
+import com.example.usermanagement.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户统计服务
+ * 以定期从数据库读取的快照为基线，用户创建、删除、状态变更和角色变更在事务提交后累加到内存计数器，
+ * 读取统计信息只做内存计算；不便计算增量的操作（如角色重命名、删除）标记过期，下次读取时重新加载快照。
+ * 计数是近似值：事务在记下增量之后、读取快照之前提交，而提交后回调在此之后才累加时，该变更会被快照和增量各计一次；
+ * 偏差只存在到下一次成功的校正，由定时校正消除
+ */
+@Service
+public class UserStatisticsService {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Value("${users.statistics.registration-days:30}")
+    private int registrationDays;
+
+    /** 累计增量，从不清零；加载快照时把当时的增量从基线中扣除 */
+    private final LongAdder totalDelta = new LongAdder();
+
+    private final LongAdder enabledDelta = new LongAdder();
+
+    private final Map<Long, LongAdder> roleDeltas = new ConcurrentHashMap<>();
+
+    private final Map<LocalDate, LongAdder> registrationDeltas = new ConcurrentHashMap<>();
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /** 为null表示尚未加载或已过期 */
+    private volatile Baseline baseline;
+
+    /**
+     * 获取用户统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Baseline loaded = baseline;
+        Baseline current = loaded != null ? loaded : reload(false);
+
+        long totalUsers = current.total + totalDelta.sum();
+        long enabledUsers = current.enabled + enabledDelta.sum();
+
+        List<RoleUserCount> usersByRole = new ArrayList<>();
+        current.roleNames.forEach((roleId, roleName) ->
+                usersByRole.add(new RoleUserCount(roleId, roleName,
+                        current.roleCounts.getOrDefault(roleId, 0L) + sum(roleDeltas.get(roleId)))));
+
+        List<DailyCount> registrationsPerDay = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(registrationDays - 1); !day.isAfter(today); day = day.plusDays(1)) {
+            registrationsPerDay.add(new DailyCount(day,
+                    current.registrations.getOrDefault(day, 0L) + sum(registrationDeltas.get(day))));
+        }
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalUsers", totalUsers);
+        statistics.put("enabledUsers", enabledUsers);
+        statistics.put("disabledUsers", totalUsers - enabledUsers);
+        statistics.put("enabledPercentage", totalUsers > 0 ? (double) enabledUsers / totalUsers * 100 : 0);
+        statistics.put("usersByRole", usersByRole);
+        statistics.put("registrationsPerDay", registrationsPerDay);
+        return statistics;
+    }
+
+    /**
+     * 定时用数据库快照校正计数器，消除加载快照时与并发提交重叠造成的偏差
+     * 统计信息从未被读取过时不加载；校正本身也可能与并发提交重叠，偏差留待下一次校正
+     */
+    @Scheduled(fixedDelayString = "${users.statistics.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (baseline != null) {
+            reload(true);
+        }
+    }
+
+    /**
+     * 记录新建用户，user需包含角色
+     */
+    public void userCreated(User user) {
+        List<Long> roleIds = roleIdsOf(user);
+        afterCommit(() -> apply(user, roleIds, 1));
+    }
+
+    /**
+     * 记录删除用户
+     */
+    public void userDeleted(User user, Collection<Long> roleIds) {
+        List<Long> removedRoleIds = new ArrayList<>(roleIds);
+        afterCommit(() -> apply(user, removedRoleIds, -1));
+    }
+
+    /**
+     * 记录用户状态变更
+     */
+    public void statusChanged(Integer oldStatus, Integer newStatus) {
+        enabledChanged(enabledFlag(newStatus) - enabledFlag(oldStatus));
+    }
+
+    /**
+     * 记录启用用户数的变化量，用于批量状态变更
+     */
+    public void enabledChanged(long delta) {
+        if (delta != 0) {
+            afterCommit(() -> enabledDelta.add(delta));
+        }
+    }
+
+    /**
+     * 记录用户角色变更
+     */
+    public void rolesChanged(Collection<Long> removedRoleIds, Collection<Long> addedRoleIds) {
+        List<Long> removed = new ArrayList<>(removedRoleIds);
+        List<Long> added = new ArrayList<>(addedRoleIds);
+        afterCommit(() -> {
+            removed.forEach(roleId -> addRole(roleId, -1));
+            added.forEach(roleId -> addRole(roleId, 1));
+        });
+    }
+
+    /**
+     * 标记统计信息过期，下次读取时重新加载快照
+     */
+    public void markStale() {
+        afterCommit(() -> baseline = null);
+    }
+
+    private void apply(User user, List<Long> roleIds, int sign) {
+        totalDelta.add(sign);
+        enabledDelta.add(sign * enabledFlag(user.getStatus()));
+        roleIds.forEach(roleId -> addRole(roleId, sign));
+        if (user.getCreatedAt() != null) {
+            registrationDeltas.computeIfAbsent(user.getCreatedAt().toLocalDate(), day -> new LongAdder()).add(sign);
+        }
+    }
+
+    private void addRole(Long roleId, long delta) {
+        roleDeltas.computeIfAbsent(roleId, id -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 加载快照
+     * force为false时，等待锁期间已由其他线程加载的快照直接使用
+     */
+    private Baseline reload(boolean force) {
+        reloadLock.lock();
+        try {
+            Baseline current = baseline;
+            if (current != null && !force) {
+                return current;
+            }
+
+            // 先记下当前增量再读快照，基线=快照-增量，之后的增量继续叠加在基线上；
+            // 在两者之间提交、回调尚未执行的事务会被重复计入，见类注释
+            long total = totalDelta.sum();
+            long enabled = enabledDelta.sum();
+            Map<Long, Long> roles = sums(roleDeltas);
+            Map<LocalDate, Long> registrations = sums(registrationDeltas);
+
+            LocalDate since = LocalDate.now().minusDays(registrationDays - 1);
+            long totalUsers = userMapper.getTotalCount();
+            long enabledUsers = userMapper.getEnabledUserCount();
+            List<RoleUserCount> roleCounts = roleMapper.countUsersByRole();
+            List<DailyCount> dailyCounts = userMapper.countRegistrationsSince(since.atStartOfDay());
+
+            Map<Long, String> roleNames = new LinkedHashMap<>();
+            Map<Long, Long> roleBaseline = new HashMap<>();
+            for (RoleUserCount roleCount : roleCounts) {
+                roleNames.put(roleCount.getRoleId(), roleCount.getRoleName());
+                roleBaseline.put(roleCount.getRoleId(),
+                        roleCount.getUserCount() - roles.getOrDefault(roleCount.getRoleId(), 0L));
+            }
+            Map<LocalDate, Long> registrationBaseline = new HashMap<>();
+            for (DailyCount dailyCount : dailyCounts) {
+                registrationBaseline.put(dailyCount.getDate(),
+                        dailyCount.getCount() - registrations.getOrDefault(dailyCount.getDate(), 0L));
+            }
+            registrations.forEach((day, delta) -> {
+                if (!day.isBefore(since)) {
+                    registrationBaseline.putIfAbsent(day, -delta);
+                }
+            });
+            registrationDeltas.keySet().removeIf(day -> day.isBefore(since));
+
+            Baseline loaded = new Baseline(totalUsers - total, enabledUsers - enabled,
+                    Collections.unmodifiableMap(roleNames), roleBaseline, registrationBaseline);
+            this.baseline = loaded;
+            return loaded;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static <K> Map<K, Long> sums(Map<K, LongAdder> deltas) {
+        Map<K, Long> sums = new HashMap<>();
+        deltas.forEach((key, adder) -> sums.put(key, adder.sum()));
+        return sums;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    private static int enabledFlag(Integer status) {
+        return status != null && status == 1 ? 1 : 0;
+    }
+
+    private static List<Long> roleIdsOf(User user) {
+        List<Long> roleIds = new ArrayList<>();
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                roleIds.add(role.getId());
+            }
+        }
+        return roleIds;
+    }
+
+    /**
+     * 在事务提交后执行，没有事务时立即执行
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 快照基线，已扣除加载时的累计增量
+     */
+    private static class Baseline {
+
+        private final long total;
+        private final long enabled;
+        private final Map<Long, String> roleNames;
+        private final Map<Long, Long> roleCounts;
+        private final Map<LocalDate, Long> registrations;
+
+        Baseline(long total, long enabled, Map<Long, String> roleNames, Map<Long, Long> roleCounts,
+                 Map<LocalDate, Long> registrations) {
+            this.total = total;
+            this.enabled = enabled;
+            this.roleNames = roleNames;
+            this.roleCounts = roleCounts;
+            this.registrations = registrations;
+        }
+    }
+}
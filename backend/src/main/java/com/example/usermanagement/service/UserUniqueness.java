@@ -0,0 +1,60 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.BusinessException;
+import com.example.usermanagement.mapper.UserMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * 用户名、邮箱唯一性检查
+ * 注册、管理员创建用户和批量导入共用：先查本节点的占用过滤器，判定可能占用时再查询数据库；
+ * 插入违反唯一约束时按已存在的字段转换为业务异常
+ */
+final class UserUniqueness {
+
+    private UserUniqueness() {
+    }
+
+    /**
+     * 用户名是否已被占用
+     */
+    static boolean isUsernameTaken(UserAvailabilityFilter filter, UserMapper userMapper, String username) {
+        return !filter.isUsernameFree(username) && userMapper.countByUsername(username) > 0;
+    }
+
+    /**
+     * 邮箱是否已被注册
+     */
+    static boolean isEmailTaken(UserAvailabilityFilter filter, UserMapper userMapper, String email) {
+        return !filter.isEmailFree(email) && userMapper.countByEmail(email) > 0;
+    }
+
+    /**
+     * 新增用户前检查用户名和邮箱，已被占用时抛出业务异常
+     */
+    static void checkAvailable(UserAvailabilityFilter filter, UserMapper userMapper, String username, String email) {
+        if (isUsernameTaken(filter, userMapper, username)) {
+            throw new BusinessException("USERNAME_EXISTS", "用户名已存在");
+        }
+        if (isEmailTaken(filter, userMapper, email)) {
+            throw new BusinessException("EMAIL_EXISTS", "邮箱已被注册");
+        }
+    }
+
+    /**
+     * 插入用户违反唯一约束时，按已存在的字段转换为业务异常并记入本节点的可用性过滤器；
+     * 并非用户名或邮箱冲突时返回原异常
+     */
+    static RuntimeException duplicateUser(UserAvailabilityFilter filter, UserMapper userMapper,
+                                          User user, DataIntegrityViolationException e) {
+        if (userMapper.countByUsername(user.getUsername()) > 0) {
+            filter.add(user.getUsername(), null);
+            return new BusinessException("USERNAME_EXISTS", "用户名已存在");
+        }
+        if (userMapper.countByEmail(user.getEmail()) > 0) {
+            filter.add(null, user.getEmail());
+            return new BusinessException("EMAIL_EXISTS", "邮箱已被注册");
+        }
+        return e;
+    }
+}
@@ -0,0 +1,18 @@
+-- 索引以CONCURRENTLY创建和删除，构建期间不阻塞users、user_roles的写入；
+-- 这类语句不能在事务中执行，DatabaseInitializer逐条自动提交执行本脚本。
+-- 版本2在全部语句成功后才记录，失败后下次启动会重新执行本脚本；
+-- 但并发构建中途失败会留下INVALID状态的索引，IF NOT EXISTS会跳过它，重新启动前需先手动DROP INDEX CONCURRENTLY删除该索引
+
+-- 启用三元组扩展，支持用户名和邮箱的子串搜索
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- 用户列表按(created_at, id)倒序的键集分页
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created_at_id ON users(created_at DESC, id DESC);
+
+-- 用户名和邮箱的子串搜索
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm ON users USING gin (username gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm ON users USING gin (email gin_trgm_ops);
+
+-- 按角色列出成员时按user_id顺序读取，取代只含role_id的索引
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_roles_role_id_user_id ON user_roles(role_id, user_id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_user_roles_role_id;
@@ -0,0 +1,115 @@
+package com.example.usermanagement.benchmark;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT过滤器令牌验证基准测试
+ * 对比原有的“validateToken + getUserIdFromToken”两次解析路径、共享解析器单次解析以及已验证令牌缓存命中
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.usermanagement.benchmark.JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationAndValidationThatIsLongEnough";
+
+    private SecretKey signingKey;
+    private JwtTokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        signingKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 3600000L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpiration", 86400000L);
+        tokenProvider.init();
+
+        verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 10000L);
+        verifiedTokenCache.init();
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setPassword("encodedPassword");
+        user.setStatus(1);
+        Role role = new Role();
+        role.setId(1L);
+        role.setName("USER");
+        user.setRoles(Arrays.asList(role));
+
+        UserPrincipal userPrincipal = UserPrincipal.create(user);
+        Authentication authentication =
+            new UsernamePasswordAuthenticationToken(userPrincipal, null, userPrincipal.getAuthorities());
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    /**
+     * 原有路径：每次新建解析器，验签两次
+     */
+    @Benchmark
+    public Long legacyValidateThenParse() {
+        Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build()
+            .parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    /**
+     * 共享解析器，验签一次
+     */
+    @Benchmark
+    public Long sharedParserSingleParse() {
+        return Long.parseLong(tokenProvider.parseClaims(token).getSubject());
+    }
+
+    /**
+     * 已验证令牌缓存命中
+     */
+    @Benchmark
+    public Long verifiedTokenCacheHit() {
+        return verifiedTokenCache.getVerifiedToken(token).getUserId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtVerificationBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
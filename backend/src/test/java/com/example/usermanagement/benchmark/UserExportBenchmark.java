@@ -0,0 +1,144 @@
+package com.example.usermanagement.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.example.usermanagement.config.MyBatisPlusConfig;
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.RoleMapper;
+import com.example.usermanagement.mapper.UserMapper;
+import com.example.usermanagement.service.UserExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户流式导出基准测试
+ * 在H2文件库中准备一百万用户（每人一个角色），以游标读取并写出CSV或NDJSON，结果为写出的字节数。
+ * 以-Xmx256m运行，堆占用与行数无关；加上-prof gc可查看每次导出的分配量
+ *
+ * 运行方式：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.usermanagement.benchmark.UserExportBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class UserExportBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"CSV", "NDJSON"})
+    private UserFileFormat format;
+
+    private Path directory;
+    private JdbcTemplate jdbcTemplate;
+    private SqlSessionFactory sqlSessionFactory;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("user-export-benchmark");
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:file:" + directory.resolve("users") + ";LAZY_QUERY_EXECUTION=TRUE");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createSchema();
+
+        MyBatisPlusConfig myBatisPlusConfig = new MyBatisPlusConfig();
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setDatabaseIdProvider(myBatisPlusConfig.databaseIdProvider());
+        factoryBean.setTransactionFactory(new JdbcTransactionFactory());
+        sqlSessionFactory = factoryBean.getObject();
+        sqlSessionFactory.getConfiguration().addMapper(RoleMapper.class);
+        sqlSessionFactory.getConfiguration().addMapper(UserMapper.class);
+
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        jdbcTemplate.execute("SHUTDOWN");
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    /**
+     * 游标逐行读取并写出
+     */
+    @Benchmark
+    public long cursorExport() throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(false);
+             Cursor<User> cursor = sqlSession.getMapper(UserMapper.class).streamUsers(null, null, null)) {
+            UserExportWriter writer = new UserExportWriter(output, format, objectMapper);
+            for (User user : cursor) {
+                writer.write(user);
+            }
+            writer.flush();
+        }
+        return output.count;
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50) NOT NULL, " +
+                "email VARCHAR(100) NOT NULL, password VARCHAR(255) NOT NULL, status INTEGER DEFAULT 1, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "last_login_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE roles (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50) NOT NULL, " +
+                "description VARCHAR(200), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE user_roles (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                "role_id BIGINT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, UNIQUE (user_id, role_id))");
+
+        jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('USER', '普通用户')");
+        jdbcTemplate.update("INSERT INTO users (username, email, password, status) " +
+                "SELECT 'user' || X, 'user' || X || '@example.com', 'encoded', MOD(X, 2) FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT X, 1 FROM SYSTEM_RANGE(1, ?)", rows);
+    }
+
+    /**
+     * 只计数不保存的输出流
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(UserExportBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
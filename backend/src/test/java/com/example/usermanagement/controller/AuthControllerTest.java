@@ -3,6 +3,7 @@ package com.example.usermanagement.controller;
 import com.example.usermanagement.dto.LoginRequest;
 import com.example.usermanagement.dto.RegisterRequest;
 import com.example.usermanagement.dto.UserResponse;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.service.AuthService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,8 +11,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AuthController.class)
+@Import(PasswordHashingExecutor.class)
 class AuthControllerTest {
 
     @Autowired
@@ -58,9 +62,13 @@ class AuthControllerTest {
         when(authService.login(any(LoginRequest.class))).thenReturn(loginResult);
 
         // When & Then
-        mockMvc.perform(post("/auth/login")
+        MvcResult mvcResult = mockMvc.perform(post("/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("登录成功"))
@@ -80,9 +88,13 @@ class AuthControllerTest {
             .thenThrow(new RuntimeException("用户名或密码错误"));
 
         // When & Then
-        mockMvc.perform(post("/auth/login")
+        MvcResult mvcResult = mockMvc.perform(post("/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("用户名或密码错误"));
@@ -112,9 +124,13 @@ class AuthControllerTest {
         when(authService.register(any(RegisterRequest.class))).thenReturn(userResponse);
 
         // When & Then
-        mockMvc.perform(post("/auth/register")
+        MvcResult mvcResult = mockMvc.perform(post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("注册成功"))
@@ -132,9 +148,13 @@ class AuthControllerTest {
             .thenThrow(new RuntimeException("用户名已存在"));
 
         // When & Then
-        mockMvc.perform(post("/auth/register")
+        MvcResult mvcResult = mockMvc.perform(post("/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("用户名已存在"));
@@ -0,0 +1,48 @@
+package com.example.usermanagement.controller;
+
+import com.example.usermanagement.service.RoleService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 角色成员接口访问控制测试
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RoleControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private RoleService roleService;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void members_NonAdminForbidden() throws Exception {
+        String body = "{\"userIds\": [1, 2]}";
+
+        mockMvc.perform(get("/roles/1/members"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/roles/1/members/stream"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/roles/1/members").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/roles/1/members").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(roleService);
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.ApiResponse;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -17,6 +19,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * 简单控制器测试
  */
 @WebMvcTest(UserController.class)
+@Import(PasswordHashingExecutor.class)
 public class SimpleUserControllerTest {
     @Autowired
     private MockMvc mockMvc;
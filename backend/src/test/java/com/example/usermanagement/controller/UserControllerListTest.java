@@ -0,0 +1,121 @@
+package com.example.usermanagement.controller;
+
+import com.example.usermanagement.dto.CountStrategy;
+import com.example.usermanagement.dto.PageResponse;
+import com.example.usermanagement.dto.UserResponse;
+import com.example.usermanagement.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 用户列表接口测试
+ * 使用独立的MockMvc，不加载Spring上下文，权限注解不在此验证
+ */
+@ExtendWith(MockitoExtension.class)
+class UserControllerListTest {
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private UserController userController;
+
+    private MockMvc mockMvc;
+
+    private UserResponse userResponse;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+
+        userResponse = new UserResponse();
+        userResponse.setId(1L);
+        userResponse.setUsername("testuser");
+        userResponse.setEmail("test@example.com");
+        userResponse.setStatus(1);
+    }
+
+    @Test
+    void getUserList_DefaultsToFirstPage() throws Exception {
+        // Given
+        when(userService.getUserList(0, 10, null, null, null, CountStrategy.EXACT))
+            .thenReturn(PageResponse.of(Arrays.asList(userResponse), 1L, 0, 10));
+
+        // When & Then
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.content[0].username").value("testuser"));
+
+        verify(userService, never()).getUserListByCursor(any(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getUserList_WithCursor() throws Exception {
+        // Given
+        PageResponse<UserResponse> pageResponse = PageResponse.ofCursor(
+            Arrays.asList(userResponse), PageResponse.TOTAL_UNKNOWN, 10, true, "next");
+        when(userService.getUserListByCursor("abc", 10, null, null, null, CountStrategy.NONE))
+            .thenReturn(pageResponse);
+
+        // When & Then
+        mockMvc.perform(get("/users")
+                .param("cursor", "abc")
+                .param("size", "10")
+                .param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.totalElements").value(-1))
+                .andExpect(jsonPath("$.data.content[0].username").value("testuser"));
+
+        verify(userService, never()).getUserList(anyInt(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getUserList_CountNoneUsesCursorFromStart() throws Exception {
+        // Given
+        when(userService.getUserListByCursor(null, 20, null, null, null, CountStrategy.NONE))
+            .thenReturn(PageResponse.ofCursor(Arrays.asList(userResponse), PageResponse.TOTAL_UNKNOWN, 20, false, null));
+
+        // When & Then
+        mockMvc.perform(get("/users")
+                .param("size", "20")
+                .param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(-1));
+
+        verify(userService, never()).getUserList(anyInt(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getUserList_PageWithCursorRejected() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/users")
+                .param("cursor", "abc")
+                .param("page", "2"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        mockMvc.perform(get("/users")
+                .param("count", "none")
+                .param("page", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(userService);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.*;
+import com.example.usermanagement.security.PasswordHashingExecutor;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.service.UserImportService;
 import com.example.usermanagement.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,9 +11,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.*;
 
@@ -22,6 +26,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(PasswordHashingExecutor.class)
 class UserControllerTest {
 
     @Autowired
@@ -30,6 +35,9 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -99,10 +107,14 @@ class UserControllerTest {
         doNothing().when(userService).changePassword(eq(1L), any(ChangePasswordRequest.class));
 
         // When & Then
-        mockMvc.perform(put("/users/password")
+        MvcResult mvcResult = mockMvc.perform(put("/users/password")
                 .with(user(userPrincipal))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("密码修改成功"));
@@ -117,7 +129,7 @@ class UserControllerTest {
         List<UserResponse> users = Arrays.asList(userResponse);
         PageResponse<UserResponse> pageResponse = PageResponse.of(users, 1L, 0, 10);
         
-        when(userService.getUserList(0, 10, null, null, null))
+        when(userService.getUserList(0, 10, null, null, null, CountStrategy.EXACT))
             .thenReturn(pageResponse);
 
         // When & Then
@@ -129,7 +141,7 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.totalElements").value(1))
                 .andExpect(jsonPath("$.data.content[0].username").value("testuser"));
 
-        verify(userService).getUserList(0, 10, null, null, null);
+        verify(userService).getUserList(0, 10, null, null, null, CountStrategy.EXACT);
     }
 
     @Test
@@ -204,10 +216,14 @@ class UserControllerTest {
         doNothing().when(userService).resetUserPassword(1L, "newPassword123", 1L);
 
         // When & Then
-        mockMvc.perform(put("/users/1/reset-password")
+        MvcResult mvcResult = mockMvc.perform(put("/users/1/reset-password")
                 .with(user(userPrincipal))
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("密码重置成功"));
@@ -239,7 +255,8 @@ class UserControllerTest {
         request.put("userIds", Arrays.asList(1L, 2L));
         request.put("status", 0);
 
-        doNothing().when(userService).batchUpdateUserStatus(anyList(), eq(0), eq(1L));
+        when(userService.batchUpdateUserStatus(anyList(), eq(0), eq(1L)))
+            .thenReturn(new BatchUpdateResult(Arrays.asList(1L, 2L), new ArrayList<>()));
 
         // When & Then
         mockMvc.perform(put("/users/batch/status")
@@ -248,9 +265,10 @@ class UserControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("用户批量禁用成功"));
+                .andExpect(jsonPath("$.message").value("用户批量禁用成功"))
+                .andExpect(jsonPath("$.data.updatedIds[1]").value(2));
 
-        verify(userService).batchUpdateUserStatus(anyList(), eq(0), eq(1L));
+        verify(userService).batchUpdateUserStatus(Arrays.asList(1L, 2L), 0, 1L);
     }
 
     @Test
@@ -314,7 +332,7 @@ class UserControllerTest {
         mockMvc.perform(get("/users"))
                 .andExpect(status().isForbidden());
 
-        verify(userService, never()).getUserList(anyInt(), anyInt(), any(), any(), any());
+        verify(userService, never()).getUserList(anyInt(), anyInt(), any(), any(), any(), any());
     }
 
     @Test
@@ -46,6 +46,21 @@ class GlobalExceptionHandlerTest {
         assertEquals("USER_NOT_FOUND", response.getBody().getError());
     }
 
+    @Test
+    void handleServiceBusyException() {
+        // Given
+        ServiceBusyException exception = new ServiceBusyException("服务繁忙，请稍后重试", 2);
+
+        // When
+        ResponseEntity<ApiResponse<Object>> response = globalExceptionHandler.handleServiceBusyException(exception);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+        assertFalse(response.getBody().isSuccess());
+        assertEquals("SERVICE_BUSY", response.getBody().getError());
+    }
+
     @Test
     void handleAccessDeniedException() {
         // Given
@@ -0,0 +1,128 @@
+package com.example.usermanagement.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.example.usermanagement.config.MyBatisPlusConfig;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mapper测试基类
+ * 使用内存H2直接构建SqlSessionFactory，不加载Spring上下文；每个测试类重建表和数据，并统计执行的SQL语句数。
+ * 数据：25个用户，全部持有角色1（USER），ID为偶数的用户另持有角色2（ADMIN）
+ */
+abstract class MapperTestSupport {
+
+    protected static final int USER_COUNT = 25;
+
+    protected static JdbcTemplate jdbcTemplate;
+
+    /** 分页插件按语句ID缓存计数语句，整个测试类共用一个SqlSessionFactory */
+    protected static SqlSessionFactory sqlSessionFactory;
+
+    protected static StatementCounter statementCounter;
+
+    /** 自动提交的会话，每个测试一个 */
+    protected SqlSession sqlSession;
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:mapper_test;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createSchema();
+
+        MyBatisPlusConfig myBatisPlusConfig = new MyBatisPlusConfig();
+        statementCounter = new StatementCounter();
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setDatabaseIdProvider(myBatisPlusConfig.databaseIdProvider());
+        // 不在Spring事务中运行，使用JDBC事务以便写操作的测试回滚
+        factoryBean.setTransactionFactory(new JdbcTransactionFactory());
+        factoryBean.setPlugins(myBatisPlusConfig.mybatisPlusInterceptor(), statementCounter);
+        sqlSessionFactory = factoryBean.getObject();
+        sqlSessionFactory.getConfiguration().addMapper(RoleMapper.class);
+        sqlSessionFactory.getConfiguration().addMapper(UserMapper.class);
+        sqlSessionFactory.getConfiguration().addMapper(UserRoleMapper.class);
+    }
+
+    @AfterAll
+    static void tearDownDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @BeforeEach
+    void openSession() {
+        sqlSession = sqlSessionFactory.openSession(true);
+    }
+
+    @AfterEach
+    void closeSession() {
+        sqlSession.close();
+    }
+
+    private static void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(50) NOT NULL, " +
+                "email VARCHAR(100) NOT NULL, password VARCHAR(255) NOT NULL, status INTEGER DEFAULT 1, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "last_login_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE roles (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(50) NOT NULL, " +
+                "description VARCHAR(200), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE user_roles (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                "role_id BIGINT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('USER', '普通用户')");
+        jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('ADMIN', '管理员')");
+        for (int i = 1; i <= USER_COUNT; i++) {
+            jdbcTemplate.update("INSERT INTO users (username, email, password) VALUES (?, ?, 'encoded')",
+                    "user" + i, "user" + i + "@example.com");
+            jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) VALUES (?, 1)", (long) i);
+            if (i % 2 == 0) {
+                jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) VALUES (?, 2)", (long) i);
+            }
+        }
+    }
+
+    /**
+     * 统计预编译的SQL语句数
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class StatementCounter implements Interceptor {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            count.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        int get() {
+            return count.get();
+        }
+
+        void reset() {
+            count.set(0);
+        }
+    }
+}
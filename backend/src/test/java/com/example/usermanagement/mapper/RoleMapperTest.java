@@ -0,0 +1,42 @@
+package com.example.usermanagement.mapper;
+
+import com.example.usermanagement.dto.RoleUserCount;
+import com.example.usermanagement.entity.Role;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 角色数据访问测试
+ */
+class RoleMapperTest extends MapperTestSupport {
+
+    @Test
+    void countUsersByRoleIdsAndDeleteUnused_SkipRolesInUse() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            RoleMapper mapper = transaction.getMapper(RoleMapper.class);
+            Role unused = new Role();
+            unused.setName("AUDITOR");
+            mapper.insert(unused);
+            List<Long> roleIds = Arrays.asList(2L, unused.getId(), 999L);
+
+            statementCounter.reset();
+            List<RoleUserCount> usage = mapper.countUsersByRoleIds(roleIds);
+            int deleted = mapper.deleteUnusedByIds(roleIds);
+            int statements = statementCounter.get();
+
+            assertEquals(2, statements);
+            assertEquals(2, usage.size());
+            assertEquals(12L, usage.get(0).getUserCount());
+            assertEquals(0L, usage.get(1).getUserCount());
+            assertEquals(1, deleted);
+            assertNull(mapper.selectById(unused.getId()));
+            assertNotNull(mapper.selectById(2L));
+            transaction.rollback();
+        }
+    }
+}
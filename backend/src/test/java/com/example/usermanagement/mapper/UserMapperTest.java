@@ -0,0 +1,236 @@
+package com.example.usermanagement.mapper;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.usermanagement.dto.DailyCount;
+import com.example.usermanagement.entity.User;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户数据访问测试
+ * 分页、游标、流式读取和批量写入，同时校验每次操作执行的SQL语句数
+ */
+class UserMapperTest extends MapperTestSupport {
+
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = sqlSession.getMapper(UserMapper.class);
+    }
+
+    @Test
+    void findUsersWithPagination_TwoStatementsPerPageRegardlessOfSize() {
+        for (int size : new int[]{5, 20}) {
+            sqlSession.clearCache();
+            statementCounter.reset();
+
+            IPage<User> page = userMapper.findUsersWithPagination(new Page<>(1, size), null, null, null);
+
+            assertEquals(size, page.getRecords().size());
+            assertEquals(USER_COUNT, page.getTotal());
+            // 一条计数语句加一条数据语句
+            assertEquals(2, statementCounter.get());
+        }
+    }
+
+    @Test
+    void findUsersWithPagination_MaterializesAllRolesWhenFilteringByRole() {
+        IPage<User> page = userMapper.findUsersWithPagination(new Page<>(1, 50), null, null, 1L);
+
+        assertEquals(USER_COUNT, page.getTotal());
+        for (User user : page.getRecords()) {
+            // 按角色筛选不应截断用户的其他角色
+            int expectedRoles = user.getId() % 2 == 0 ? 2 : 1;
+            assertEquals(expectedRoles, user.getRoles().size());
+            assertEquals("USER", user.getRoles().get(0).getName());
+        }
+    }
+
+    @Test
+    void findUsersWithPagination_SearchIsCaseInsensitiveAndOrderedByRelevance() {
+        Page<User> page = new Page<>(1, 10);
+        page.setCountId("countUsers");
+
+        IPage<User> result = userMapper.findUsersWithPagination(page, "USER2", null, null);
+
+        // user2、user20~user25
+        assertEquals(7, result.getTotal());
+        assertEquals("user2", result.getRecords().get(0).getUsername());
+    }
+
+    @Test
+    void findByIdsWithRoles_LoadsUsersAndRolesInOneStatement() {
+        statementCounter.reset();
+
+        List<User> users = userMapper.findByIdsWithRoles(Arrays.asList(4L, 1L, 9999L));
+
+        assertEquals(Arrays.asList(1L, 4L), users.stream().map(User::getId).collect(Collectors.toList()));
+        assertEquals(1, users.get(0).getRoles().size());
+        assertEquals(2, users.get(1).getRoles().size());
+        assertEquals(1, statementCounter.get());
+    }
+
+    @Test
+    void findUsersAfterCursor_WalksAllUsersOneStatementPerPage() {
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        List<User> users;
+        do {
+            sqlSession.clearCache();
+            statementCounter.reset();
+
+            users = userMapper.findUsersAfterCursor(null, null, null, cursorCreatedAt, cursorId, 7);
+
+            assertEquals(1, statementCounter.get());
+            for (User user : users) {
+                ids.add(user.getId());
+                assertFalse(user.getRoles().isEmpty());
+            }
+            if (!users.isEmpty()) {
+                User last = users.get(users.size() - 1);
+                cursorCreatedAt = last.getCreatedAt();
+                cursorId = last.getId();
+            }
+        } while (users.size() == 7);
+
+        // 按(created_at, id)倒序，不重复不遗漏
+        assertEquals(USER_COUNT, ids.size());
+        for (int i = 0; i < USER_COUNT; i++) {
+            assertEquals(Long.valueOf(USER_COUNT - i), ids.get(i));
+        }
+    }
+
+    @Test
+    void streamUsers_ReadsFilteredUsersInIdOrderWithOneStatement() throws Exception {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserMapper mapper = transaction.getMapper(UserMapper.class);
+            statementCounter.reset();
+
+            List<User> users = new ArrayList<>();
+            try (Cursor<User> cursor = mapper.streamUsers(null, null, 2L)) {
+                cursor.forEach(users::add);
+            }
+
+            assertEquals(12, users.size());
+            assertEquals(2L, users.get(0).getId());
+            assertEquals(24L, users.get(11).getId());
+            assertEquals(2, users.get(0).getRoles().size());
+            assertEquals(1, statementCounter.get());
+        }
+    }
+
+    @Test
+    void streamUsernamesAndEmails_ReadsAllUsersWithOneStatement() throws Exception {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserMapper mapper = transaction.getMapper(UserMapper.class);
+            statementCounter.reset();
+
+            List<User> users = new ArrayList<>();
+            try (Cursor<User> cursor = mapper.streamUsernamesAndEmails()) {
+                cursor.forEach(users::add);
+            }
+
+            assertEquals(USER_COUNT, users.size());
+            assertTrue(users.stream().anyMatch(user -> "user7".equals(user.getUsername())
+                    && "user7@example.com".equals(user.getEmail())));
+            assertEquals(1, statementCounter.get());
+        }
+    }
+
+    @Test
+    void countUsers_TreatsWildcardsLiterally() {
+        assertEquals(0, userMapper.countUsers("%", null, null));
+        assertEquals(0, userMapper.countUsers("user_", null, null));
+    }
+
+    @Test
+    void countUsers_AppliesFilters() {
+        assertEquals(USER_COUNT, userMapper.countUsers(null, null, null));
+        assertEquals(12, userMapper.countUsers(null, null, 2L));
+        assertEquals(11, userMapper.countUsers("user1", null, null));
+    }
+
+    @Test
+    void explainUsers_ReturnsPlanWithFilters() {
+        List<String> plan = userMapper.explainUsers("user", 1, 2L);
+
+        assertFalse(plan.isEmpty());
+        assertTrue(plan.get(0).toUpperCase().contains("USERS"));
+    }
+
+    @Test
+    void countRegistrationsSince_GroupsByDay() {
+        List<DailyCount> registrations = userMapper.countRegistrationsSince(LocalDate.now().atStartOfDay());
+
+        assertEquals(1, registrations.size());
+        assertEquals(LocalDate.now(), registrations.get(0).getDate());
+        assertEquals(USER_COUNT, registrations.get(0).getCount());
+    }
+
+    @Test
+    void batchUpdateStatus_TwoStatementsForWholeChunk() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserMapper mapper = transaction.getMapper(UserMapper.class);
+            List<Long> ids = Arrays.asList(1L, 2L, 3L, 999L);
+
+            statementCounter.reset();
+            List<User> existing = mapper.findStatusesForUpdate(ids);
+            int updated = mapper.batchUpdateStatus(ids, 0, LocalDateTime.now());
+            int statements = statementCounter.get();
+
+            assertEquals(2, statements);
+            assertEquals(3, existing.size());
+            assertEquals(1, existing.get(0).getStatus());
+            assertEquals(3, updated);
+            assertEquals(3, mapper.countUsers(null, 0, null));
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    void batchInsert_AssignsGeneratedIdsInOneStatement() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserMapper mapper = transaction.getMapper(UserMapper.class);
+            List<User> users = new ArrayList<>();
+            for (String username : Arrays.asList("imported1", "imported2", "imported3")) {
+                User user = new User();
+                user.setUsername(username);
+                user.setEmail(username + "@example.com");
+                user.setPassword("encoded");
+                user.setStatus(1);
+                user.setCreatedAt(LocalDateTime.now());
+                user.setUpdatedAt(LocalDateTime.now());
+                users.add(user);
+            }
+
+            statementCounter.reset();
+            int inserted = mapper.batchInsert(users);
+            int statements = statementCounter.get();
+
+            assertEquals(1, statements);
+            assertEquals(3, inserted);
+            for (User user : users) {
+                assertNotNull(user.getId());
+                assertEquals(user.getUsername(), mapper.selectById(user.getId()).getUsername());
+            }
+            assertEquals(Collections.singletonList("imported2"),
+                    mapper.findExistingUsernames(Arrays.asList("imported2", "missing")));
+            transaction.rollback();
+        }
+    }
+}
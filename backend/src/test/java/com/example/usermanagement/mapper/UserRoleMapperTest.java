@@ -0,0 +1,138 @@
+package com.example.usermanagement.mapper;
+
+import com.example.usermanagement.dto.UserSummary;
+import com.example.usermanagement.entity.UserRole;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户角色关联数据访问测试
+ * 角色成员分页和流式读取、按差异增删关联，同时校验每次操作执行的SQL语句数
+ */
+class UserRoleMapperTest extends MapperTestSupport {
+
+    private UserRoleMapper userRoleMapper;
+
+    @BeforeEach
+    void setUp() {
+        userRoleMapper = sqlSession.getMapper(UserRoleMapper.class);
+    }
+
+    @Test
+    void findMembersAfter_PagesRoleMembersByUserId() {
+        statementCounter.reset();
+
+        List<UserSummary> first = userRoleMapper.findMembersAfter(2L, null, 5);
+        List<UserSummary> second = userRoleMapper.findMembersAfter(2L, first.get(first.size() - 1).getId(), 5);
+        List<UserSummary> last = userRoleMapper.findMembersAfter(2L, 20L, 5);
+
+        assertEquals(3, statementCounter.get());
+        assertEquals(Arrays.asList(2L, 4L, 6L, 8L, 10L), idsOf(first));
+        assertEquals("user2", first.get(0).getUsername());
+        assertEquals("user2@example.com", first.get(0).getEmail());
+        assertEquals(1, first.get(0).getStatus());
+        assertEquals(Arrays.asList(12L, 14L, 16L, 18L, 20L), idsOf(second));
+        assertEquals(Arrays.asList(22L, 24L), idsOf(last));
+    }
+
+    @Test
+    void streamMembers_ReadsAllRoleMembersWithOneStatement() throws Exception {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserRoleMapper mapper = transaction.getMapper(UserRoleMapper.class);
+            statementCounter.reset();
+
+            List<UserSummary> members = new ArrayList<>();
+            try (Cursor<UserSummary> cursor = mapper.streamMembers(2L)) {
+                cursor.forEach(members::add);
+            }
+
+            assertEquals(12, members.size());
+            assertEquals(2L, members.get(0).getId());
+            assertEquals(24L, members.get(11).getId());
+            assertEquals(1, statementCounter.get());
+        }
+    }
+
+    @Test
+    void insertRolesIfAbsentAndDeleteByRoleIds_ApplyRoleDelta() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserRoleMapper mapper = transaction.getMapper(UserRoleMapper.class);
+
+            statementCounter.reset();
+            mapper.insertRolesIfAbsent(1L, Arrays.asList(1L, 2L), LocalDateTime.now());
+            int statements = statementCounter.get();
+            List<Long> afterInsert = mapper.findRoleIdsByUserId(1L);
+            int deleted = mapper.deleteByUserIdAndRoleIds(1L, Collections.singletonList(1L));
+
+            assertEquals(1, statements);
+            assertEquals(Arrays.asList(1L, 2L), afterInsert);
+            assertEquals(1, deleted);
+            assertEquals(Collections.singletonList(2L), mapper.findRoleIdsByUserId(1L));
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    void bulkRoleMembership_OneStatementPerStep() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserRoleMapper mapper = transaction.getMapper(UserRoleMapper.class);
+
+            statementCounter.reset();
+            List<UserRole> memberships = mapper.findMembershipsOfUsers(2L, Arrays.asList(1L, 2L, 999L));
+            List<Long> inserted = mapper.insertUsersIfAbsent(2L, Arrays.asList(1L, 3L), LocalDateTime.now());
+            List<Long> deleted = mapper.deleteByRoleIdAndUserIds(2L, Arrays.asList(2L, 4L, 5L));
+            int statements = statementCounter.get();
+
+            assertEquals(3, statements);
+            assertEquals(2, memberships.size());
+            for (UserRole membership : memberships) {
+                assertEquals(membership.getUserId() == 2L ? Long.valueOf(2L) : null, membership.getRoleId());
+            }
+            assertEquals(Arrays.asList(1L, 3L), sorted(inserted));
+            assertEquals(Arrays.asList(2L, 4L), sorted(deleted));
+            assertEquals(Arrays.asList(1L, 3L, 6L), idsOf(mapper.findMembersAfter(2L, null, 3)));
+            // 以@Select执行的写语句不会标记会话已修改，需强制回滚
+            transaction.rollback(true);
+        }
+    }
+
+    @Test
+    void insertIfAbsent_LeavesExistingMembershipsUntouched() {
+        try (SqlSession transaction = sqlSessionFactory.openSession(false)) {
+            UserRoleMapper mapper = transaction.getMapper(UserRoleMapper.class);
+            LocalDateTime createdAt = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+            List<Long> inserted = mapper.insertUsersIfAbsent(2L, Arrays.asList(2L, 3L), createdAt);
+            int insertedRoles = mapper.insertRolesIfAbsent(4L, Arrays.asList(1L, 2L), createdAt);
+
+            assertEquals(Collections.singletonList(3L), inserted);
+            assertEquals(0, insertedRoles);
+            assertEquals(0, (int) jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM user_roles WHERE user_id IN (2, 4) AND created_at = ?", Integer.class,
+                    createdAt));
+            // 以@Select执行的写语句不会标记会话已修改，需强制回滚
+            transaction.rollback(true);
+        }
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(List<UserSummary> members) {
+        List<Long> ids = new ArrayList<>();
+        members.forEach(member -> ids.add(member.getId()));
+        return ids;
+    }
+}
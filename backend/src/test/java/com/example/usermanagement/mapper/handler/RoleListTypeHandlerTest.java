@@ -0,0 +1,39 @@
+package com.example.usermanagement.mapper.handler;
+
+import com.example.usermanagement.entity.Role;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleListTypeHandlerTest {
+
+    @Test
+    void parse_AggregatedRoles() throws SQLException {
+        String json = "[{\"id\":1,\"name\":\"ADMIN\",\"description\":\"管理员, 全部权限\"," +
+                "\"createdAt\":\"2024-01-01T08:00:00.123456\",\"updatedAt\":null}," +
+                "{\"id\":2,\"name\":\"USER\",\"description\":null,\"createdAt\":null,\"updatedAt\":null}]";
+
+        List<Role> roles = RoleListTypeHandler.parse(json);
+
+        assertEquals(2, roles.size());
+        assertEquals("ADMIN", roles.get(0).getName());
+        assertEquals("管理员, 全部权限", roles.get(0).getDescription());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123456000), roles.get(0).getCreatedAt());
+        assertEquals(Long.valueOf(2L), roles.get(1).getId());
+    }
+
+    @Test
+    void parse_EmptyOrNull() throws SQLException {
+        assertTrue(RoleListTypeHandler.parse(null).isEmpty());
+        assertTrue(RoleListTypeHandler.parse("[]").isEmpty());
+    }
+
+    @Test
+    void parse_InvalidJson() {
+        assertThrows(SQLException.class, () -> RoleListTypeHandler.parse("not-json"));
+    }
+}
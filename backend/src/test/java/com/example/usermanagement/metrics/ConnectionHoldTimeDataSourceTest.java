@@ -0,0 +1,77 @@
+package com.example.usermanagement.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionHoldTimeDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection targetConnection;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Mock
+    private MethodInvocation invocation;
+
+    private MeterRegistry meterRegistry;
+
+    private ConnectionHoldTimeDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        when(targetDataSource.getConnection()).thenReturn(targetConnection);
+        dataSource = new ConnectionHoldTimeDataSource(targetDataSource, meterRegistryProvider);
+    }
+
+    @Test
+    void close_RecordsHoldTimeOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        Timer timer = meterRegistry.get(ConnectionHoldTimeDataSource.METRIC_NAME)
+            .tag("method", ServiceMethodTracker.NONE)
+            .timer();
+        assertEquals(1, timer.count());
+        verify(targetConnection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_TaggedWithCurrentServiceMethod() throws Throwable {
+        when(invocation.getThis()).thenReturn(new Object());
+        when(invocation.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(invocation.proceed()).thenAnswer(call -> {
+            dataSource.getConnection().close();
+            return null;
+        });
+
+        new ServiceMethodTracker().invoke(invocation);
+
+        Timer timer = meterRegistry.get(ConnectionHoldTimeDataSource.METRIC_NAME)
+            .tag("method", "Object.toString")
+            .timer();
+        assertEquals(1, timer.count());
+        assertEquals(ServiceMethodTracker.NONE, ServiceMethodTracker.currentMethod());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.usermanagement.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    void calibrate_StaysWithinBounds() {
+        assertEquals(4, AdaptiveBCryptPasswordEncoder.calibrate(0, 4, 6));
+        assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(60_000, 4, 6));
+        assertEquals(5, AdaptiveBCryptPasswordEncoder.calibrate(60_000, 5, 5));
+    }
+
+    @Test
+    void upgradeEncoding_OnlyWhenStoredStrengthIsLower() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding("plain"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void matches_HashesOfAnyStrength() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.matches("password", new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.matches("wrong", new BCryptPasswordEncoder(4).encode("password")));
+    }
+}
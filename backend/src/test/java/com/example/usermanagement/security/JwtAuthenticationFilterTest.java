@@ -0,0 +1,156 @@
+package com.example.usermanagement.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "token";
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(filter, "claimsOnlyAuth", true);
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static VerifiedToken token(Claims claims) {
+        return VerifiedToken.from(claims);
+    }
+
+    private static Claims claims(boolean enabled) {
+        Claims claims = Jwts.claims().setSubject("1");
+        claims.put("username", "testuser");
+        claims.put("authorities", "ROLE_USER");
+        claims.put(JwtTokenProvider.ENABLED_CLAIM, enabled);
+        claims.put(JwtTokenProvider.SECURITY_STAMP_CLAIM, "100:5");
+        return claims;
+    }
+
+    private Authentication filter() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest(), "过滤器应继续执行后续过滤器");
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Test
+    void claimsOnly_ValidStampAuthenticatesWithoutDatabase() throws Exception {
+        // Given
+        when(verifiedTokenCache.getVerifiedToken(TOKEN)).thenReturn(token(claims(true)));
+        when(securityVersionRegistry.check(1L, "100:5")).thenReturn(UserSecurityVersionRegistry.StampStatus.VALID);
+
+        // When
+        Authentication authentication = filter();
+
+        // Then
+        assertNotNull(authentication);
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        assertEquals(1L, principal.getId());
+        assertEquals("testuser", principal.getUsername());
+        assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsOnly_RevokedStampRejected() throws Exception {
+        // Given
+        when(verifiedTokenCache.getVerifiedToken(TOKEN)).thenReturn(token(claims(true)));
+        when(securityVersionRegistry.check(1L, "100:5")).thenReturn(UserSecurityVersionRegistry.StampStatus.REVOKED);
+
+        // When
+        Authentication authentication = filter();
+
+        // Then
+        assertNull(authentication);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsOnly_UnknownStampFallsBackToDatabase() throws Exception {
+        // Given
+        UserPrincipal loaded = new UserPrincipal(1L, "testuser", "test@example.com", "encoded", true,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")), "200:1");
+        when(verifiedTokenCache.getVerifiedToken(TOKEN)).thenReturn(token(claims(true)));
+        when(securityVersionRegistry.check(1L, "100:5")).thenReturn(UserSecurityVersionRegistry.StampStatus.UNKNOWN);
+        when(userDetailsService.loadUserById(1L)).thenReturn(loaded);
+
+        // When
+        Authentication authentication = filter();
+
+        // Then
+        assertNotNull(authentication);
+        assertSame(loaded, authentication.getPrincipal());
+        verify(userDetailsService).loadUserById(1L);
+    }
+
+    @Test
+    void claimsOnly_DisabledAccountRejected() throws Exception {
+        // Given
+        when(verifiedTokenCache.getVerifiedToken(TOKEN)).thenReturn(token(claims(false)));
+        when(securityVersionRegistry.check(1L, "100:5")).thenReturn(UserSecurityVersionRegistry.StampStatus.VALID);
+
+        // When
+        Authentication authentication = filter();
+
+        // Then
+        assertNull(authentication);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsOnly_TokenWithoutEnabledClaimFallsBackToDatabase() throws Exception {
+        // Given
+        Claims claims = claims(true);
+        claims.remove(JwtTokenProvider.ENABLED_CLAIM);
+        when(verifiedTokenCache.getVerifiedToken(TOKEN)).thenReturn(token(claims));
+        when(userDetailsService.loadUserById(1L)).thenReturn(null);
+
+        // When
+        filter();
+
+        // Then
+        verify(userDetailsService).loadUserById(1L);
+        verify(securityVersionRegistry, never()).check(anyLong(), any());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor();
+        ReflectionTestUtils.setField(executor, "poolSize", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "retryAfterSeconds", 1L);
+        executor.init();
+        meterRegistry = new SimpleMeterRegistry();
+        executor.bindTo(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_ReturnsTaskResult() throws Exception {
+        CompletableFuture<String> future = executor.submit(() -> "hashed");
+
+        assertEquals("hashed", future.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("auth.hashing.wait").timer().count());
+    }
+
+    @Test
+    void submit_RejectsWhenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        CompletableFuture<String> rejected = executor.submit(() -> "rejected");
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof ServiceBusyException);
+        assertEquals(1, executor.getQueueSize());
+        assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+}
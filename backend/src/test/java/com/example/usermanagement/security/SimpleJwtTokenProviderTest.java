@@ -82,6 +82,25 @@ public class SimpleJwtTokenProviderTest {
         assertTrue(jwtTokenProvider.validateToken(refreshToken));
     }
     
+    @Test
+    void testPrincipalFromClaims() {
+        // 令牌声明中携带启用状态，重建的主体与签发时一致
+        String token = jwtTokenProvider.generateToken(authentication);
+        UserPrincipal principal = jwtTokenProvider.getPrincipalFromClaims(jwtTokenProvider.parseClaims(token));
+
+        assertNotNull(principal);
+        assertEquals(1L, principal.getId());
+        assertEquals("testuser", principal.getUsername());
+        assertTrue(principal.isEnabled());
+
+        // 禁用账户签发的令牌重建后同样为禁用
+        testUser.setStatus(0);
+        UserPrincipal disabled = UserPrincipal.create(testUser);
+        String disabledToken = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(disabled, null, disabled.getAuthorities()));
+        assertFalse(jwtTokenProvider.getPrincipalFromClaims(jwtTokenProvider.parseClaims(disabledToken)).isEnabled());
+    }
+
     @Test
     void testInvalidToken() {
         // 无效令牌
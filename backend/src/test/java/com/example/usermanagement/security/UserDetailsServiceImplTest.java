@@ -11,6 +11,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -24,14 +25,24 @@ class UserDetailsServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
+    private UserPrincipalCache userPrincipalCache;
     private User testUser;
     private Role testRole;
 
     @BeforeEach
     void setUp() {
+        userPrincipalCache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(userPrincipalCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(userPrincipalCache, "ttlSeconds", 60L);
+        userPrincipalCache.init();
+        ReflectionTestUtils.setField(userDetailsService, "userPrincipalCache", userPrincipalCache);
+
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -202,4 +213,101 @@ class UserDetailsServiceImplTest {
         assertEquals("用户不存在: null", exception.getMessage());
         verify(userMapper).findByUsernameWithRoles(null);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadUserById_ServedFromCacheUntilEvicted() {
+        // Given
+        when(userMapper.findByIdWithRoles(1L)).thenReturn(testUser);
+
+        // When
+        UserDetails first = userDetailsService.loadUserById(1L);
+        UserDetails second = userDetailsService.loadUserById(1L);
+
+        // Then
+        assertSame(first, second);
+        verify(userMapper, times(1)).findByIdWithRoles(1L);
+
+        // 失效后重新查询数据库
+        userPrincipalCache.evict(1L);
+        userDetailsService.loadUserById(1L);
+        verify(userMapper, times(2)).findByIdWithRoles(1L);
+    }
+
+    @Test
+    void loadUserByUsername_EvictedByUserId() {
+        // Given
+        when(userMapper.findByUsernameWithRoles("testuser")).thenReturn(testUser);
+
+        // When
+        userDetailsService.loadUserByUsername("testuser");
+        userDetailsService.loadUserByUsername("testuser");
+        userPrincipalCache.evict(1L);
+        userDetailsService.loadUserByUsername("testuser");
+
+        // Then
+        verify(userMapper, times(2)).findByUsernameWithRoles("testuser");
+    }
+
+    @Test
+    void updatePassword_StoresRehashAndEvictsCache() {
+        // Given
+        when(userMapper.findByIdWithRoles(1L)).thenReturn(testUser);
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserById(1L);
+        when(userMapper.rehashPassword(1L, "encodedPassword", "rehashedPassword")).thenReturn(1);
+
+        // When
+        UserDetails updated = userDetailsService.updatePassword(principal, "rehashedPassword");
+
+        // Then
+        assertEquals("rehashedPassword", updated.getPassword());
+        userDetailsService.loadUserById(1L);
+        verify(userMapper, times(2)).findByIdWithRoles(1L);
+        verify(securityVersionRegistry, never()).bump(any());
+    }
+
+    @Test
+    void updatePassword_ConcurrentChangeKeepsPrincipal() {
+        // Given
+        UserPrincipal principal = UserPrincipal.create(testUser);
+        when(userMapper.rehashPassword(1L, "encodedPassword", "rehashedPassword")).thenReturn(0);
+
+        // When
+        UserDetails updated = userDetailsService.updatePassword(principal, "rehashedPassword");
+
+        // Then
+        assertSame(principal, updated);
+    }
+
+    @Test
+    void loadUserForLogin_WarmsCacheForAuthentication() {
+        // Given
+        when(securityVersionRegistry.currentStamp()).thenReturn("1:0");
+        when(securityVersionRegistry.check(1L, "1:0")).thenReturn(UserSecurityVersionRegistry.StampStatus.VALID);
+        when(userMapper.findByUsernameForLogin("testuser")).thenReturn(testUser);
+
+        // When
+        User user = userDetailsService.loadUserForLogin("testuser");
+        UserDetails userDetails = userDetailsService.loadUserByUsername("testuser");
+
+        // Then
+        assertSame(testUser, user);
+        assertEquals("encodedPassword", userDetails.getPassword());
+        verify(userMapper, never()).findByUsernameWithRoles(anyString());
+    }
+
+    @Test
+    void loadUserForLogin_SkipsCacheWhenVersionChanged() {
+        // Given
+        when(securityVersionRegistry.currentStamp()).thenReturn("1:0");
+        when(securityVersionRegistry.check(1L, "1:0")).thenReturn(UserSecurityVersionRegistry.StampStatus.REVOKED);
+        when(userMapper.findByUsernameForLogin("testuser")).thenReturn(testUser);
+        when(userMapper.findByUsernameWithRoles("testuser")).thenReturn(testUser);
+
+        // When
+        userDetailsService.loadUserForLogin("testuser");
+        userDetailsService.loadUserByUsername("testuser");
+
+        // Then
+        verify(userMapper).findByUsernameWithRoles("testuser");
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.usermanagement.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户主体缓存测试
+ */
+class UserPrincipalCacheTest {
+
+    private UserPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    private static UserPrincipal principal(String password, boolean enabled) {
+        return new UserPrincipal(1L, "alice", "alice@example.com", password, enabled,
+                Collections.emptyList(), null);
+    }
+
+    @Test
+    void evict_RemovesPrincipalCachedByUsername() {
+        cache.getByUsername("alice", username -> principal("old", true));
+
+        cache.evict(1L);
+
+        assertEquals("new", cache.getByUsername("alice", username -> principal("new", true)).getPassword());
+    }
+
+    @Test
+    void evict_DuringInFlightLoadDoesNotKeepStalePrincipal() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        CompletableFuture<UserPrincipal> login = CompletableFuture.supplyAsync(() ->
+                cache.getByUsername("alice", username -> {
+                    // 读到提交前的旧数据后才发生失效
+                    loading.countDown();
+                    try {
+                        evicted.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return principal("old", true);
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict(1L);
+        evicted.countDown();
+
+        assertEquals("old", login.get(5, TimeUnit.SECONDS).getPassword());
+        UserPrincipal reloaded = cache.getByUsername("alice", username -> principal("new", false));
+        assertEquals("new", reloaded.getPassword());
+        assertFalse(reloaded.isEnabled());
+    }
+}
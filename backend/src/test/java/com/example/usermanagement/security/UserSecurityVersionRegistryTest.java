@@ -0,0 +1,51 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.security.UserSecurityVersionRegistry.StampStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户安全版本登记表测试
+ */
+class UserSecurityVersionRegistryTest {
+
+    private UserSecurityVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new UserSecurityVersionRegistry();
+    }
+
+    @Test
+    void check_StampIssuedBeforeBumpIsRevoked() {
+        String stamp = registry.currentStamp();
+        assertEquals(StampStatus.VALID, registry.check(1L, stamp));
+
+        registry.bump(1L);
+
+        assertEquals(StampStatus.REVOKED, registry.check(1L, stamp));
+        assertEquals(StampStatus.VALID, registry.check(2L, stamp));
+        assertEquals(StampStatus.VALID, registry.check(1L, registry.currentStamp()));
+    }
+
+    @Test
+    void check_BumpAllRevokesEveryUser() {
+        String stamp = registry.currentStamp();
+
+        registry.bumpAll();
+
+        assertEquals(StampStatus.REVOKED, registry.check(1L, stamp));
+        assertEquals(StampStatus.REVOKED, registry.check(2L, stamp));
+        assertEquals(StampStatus.VALID, registry.check(2L, registry.currentStamp()));
+    }
+
+    @Test
+    void check_ForeignOrMalformedStampIsUnknown() {
+        assertEquals(StampStatus.UNKNOWN, registry.check(1L, null));
+        assertEquals(StampStatus.UNKNOWN, registry.check(1L, "garbage"));
+        assertEquals(StampStatus.UNKNOWN, registry.check(1L, "1:abc"));
+        assertEquals(StampStatus.UNKNOWN, registry.check(1L, "1:0"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 已验证令牌缓存测试
+ */
+class VerifiedTokenCacheTest {
+
+    private JwtTokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = spy(new JwtTokenProvider());
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "mySecretKeyForJWTTokenGenerationAndValidationThatIsLongEnough");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 3600000L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpiration", 86400000L);
+        tokenProvider.init();
+
+        verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 100L);
+        verifiedTokenCache.init();
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setEmail("test@example.com");
+        user.setPassword("encodedPassword");
+        user.setStatus(1);
+        Role role = new Role();
+        role.setId(1L);
+        role.setName("USER");
+        user.setRoles(Arrays.asList(role));
+
+        UserPrincipal userPrincipal = UserPrincipal.create(user);
+        authentication = new UsernamePasswordAuthenticationToken(userPrincipal, null, userPrincipal.getAuthorities());
+    }
+
+    @Test
+    void getVerifiedToken_VerifiesSignatureOnlyOnce() {
+        String token = tokenProvider.generateToken(authentication);
+
+        VerifiedToken first = verifiedTokenCache.getVerifiedToken(token);
+        VerifiedToken second = verifiedTokenCache.getVerifiedToken(token);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1L, first.getUserId());
+        assertEquals("testuser", first.getUsername());
+        assertNotNull(first.getExpiresAt());
+        assertEquals("ROLE_USER", first.toPrincipal().getAuthorities().iterator().next().getAuthority());
+        assertEquals(1, verifiedTokenCache.size());
+        verify(tokenProvider, times(1)).parseClaims(anyString());
+    }
+
+    @Test
+    void getVerifiedToken_InvalidTokenNotCached() {
+        assertNull(verifiedTokenCache.getVerifiedToken("invalid.token.here"));
+        assertNull(verifiedTokenCache.getVerifiedToken("invalid.token.here"));
+
+        assertEquals(0, verifiedTokenCache.size());
+        verify(tokenProvider, times(2)).parseClaims(anyString());
+    }
+
+    @Test
+    void getVerifiedToken_ExpiredTokenRejected() {
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", -1000L);
+        String expiredToken = tokenProvider.generateToken(authentication);
+
+        assertNull(verifiedTokenCache.getVerifiedToken(expiredToken));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+}
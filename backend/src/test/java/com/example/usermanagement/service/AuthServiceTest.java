@@ -9,18 +9,24 @@ import com.example.usermanagement.exception.BusinessException;
 import com.example.usermanagement.mapper.UserMapper;
 import com.example.usermanagement.mapper.UserRoleMapper;
 import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.UserDetailsServiceImpl;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -51,6 +57,27 @@ class AuthServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Mock
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private UserStatisticsService userStatisticsService;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     @InjectMocks
     private AuthService authService;
 
@@ -88,7 +115,7 @@ class AuthServiceTest {
         when(authentication.getPrincipal()).thenReturn(userPrincipal);
         when(tokenProvider.generateToken(authentication)).thenReturn("access-token");
         when(tokenProvider.generateRefreshToken(authentication)).thenReturn("refresh-token");
-        when(userMapper.findByIdWithRoles(1L)).thenReturn(testUser);
+        when(userDetailsService.loadUserForLogin("testuser")).thenReturn(testUser);
 
         // When
         Map<String, Object> result = authService.login(loginRequest);
@@ -100,7 +127,11 @@ class AuthServiceTest {
         assertEquals("Bearer", result.get("tokenType"));
         assertNotNull(result.get("user"));
         
-        verify(userMapper).updateLastLoginTime(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(lastLoginRecorder).record(eq(1L), any(LocalDateTime.class));
+        verify(userMapper, never()).updateLastLoginTime(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertNotNull(((UserResponse) result.get("user")).getLastLoginAt());
+        // 登录查询的结果直接用于构建响应，不再重新查询用户
+        verify(userMapper, never()).findByIdWithRoles(anyLong());
     }
 
     @Test
@@ -166,6 +197,24 @@ class AuthServiceTest {
         assertEquals("用户名已存在", exception.getMessage());
     }
 
+    @Test
+    void register_ConcurrentDuplicateOnInsertMapsToUsernameExists() {
+        // Given - 检查时用户名可用，插入时已被其他节点注册
+        RegisterRequest registerRequest = new RegisterRequest("newuser", "new@example.com", "password123");
+
+        when(userMapper.countByUsername("newuser")).thenReturn(0, 1);
+        when(userMapper.countByEmail("new@example.com")).thenReturn(0);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword123");
+        when(userMapper.insert(any(User.class))).thenThrow(new DuplicateKeyException("users_username_key"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> authService.register(registerRequest));
+        assertEquals("USERNAME_EXISTS", exception.getCode());
+        verify(userAvailabilityFilter).add("newuser", null);
+        verify(userRoleMapper, never()).assignDefaultRole(any());
+    }
+
     @Test
     void register_EmailExists() {
         // Given
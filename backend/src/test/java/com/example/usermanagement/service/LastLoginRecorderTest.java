@@ -0,0 +1,107 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LastLoginRecorderTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @InjectMocks
+    private LastLoginRecorder lastLoginRecorder;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lastLoginRecorder, "maxPending", 2);
+        ReflectionTestUtils.setField(lastLoginRecorder, "batchSize", 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_CoalescesLoginsIntoSingleUpdate() {
+        // Given
+        LocalDateTime first = LocalDateTime.of(2024, 1, 1, 8, 0);
+        LocalDateTime latest = first.plusMinutes(5);
+        lastLoginRecorder.record(1L, latest);
+        lastLoginRecorder.record(1L, first);
+        lastLoginRecorder.record(2L, first);
+
+        // When
+        lastLoginRecorder.flush();
+
+        // Then
+        ArgumentCaptor<Map<Long, LocalDateTime>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(userMapper, times(1)).batchUpdateLastLoginTime(captor.capture(), any(LocalDateTime.class));
+        assertEquals(2, captor.getValue().size());
+        assertEquals(latest, captor.getValue().get(1L));
+        assertEquals(0, lastLoginRecorder.getPendingCount());
+        assertEquals(0L, lastLoginRecorder.getLagMillis());
+    }
+
+    @Test
+    void flush_FailureKeepsPendingForRetry() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        lastLoginRecorder.record(1L, now);
+        when(userMapper.batchUpdateLastLoginTime(anyMap(), any(LocalDateTime.class)))
+            .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        // When
+        lastLoginRecorder.flush();
+
+        // Then
+        assertEquals(1, lastLoginRecorder.getPendingCount());
+    }
+
+    @Test
+    void record_BufferFullDropsAndHandsFlushToScheduler() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        lastLoginRecorder.record(1L, now);
+        lastLoginRecorder.record(2L, now);
+
+        // When
+        lastLoginRecorder.record(3L, now);
+        lastLoginRecorder.record(4L, now);
+        lastLoginRecorder.record(1L, now.plusMinutes(1));
+
+        // Then - 登录线程不写库，只提交一次写入请求
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(captor.capture(), any(Instant.class));
+        verifyNoInteractions(userMapper);
+        assertEquals(2, lastLoginRecorder.getPendingCount());
+
+        // When - 调度线程执行写入
+        captor.getValue().run();
+
+        // Then
+        verify(userMapper, times(1)).batchUpdateLastLoginTime(anyMap(), any(LocalDateTime.class));
+        assertEquals(0, lastLoginRecorder.getPendingCount());
+        lastLoginRecorder.record(3L, now);
+        lastLoginRecorder.record(4L, now);
+        lastLoginRecorder.record(5L, now);
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+}
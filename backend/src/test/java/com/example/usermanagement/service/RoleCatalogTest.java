@@ -0,0 +1,137 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.mapper.RoleMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleCatalogTest {
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @InjectMocks
+    private RoleCatalog roleCatalog;
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+    @Test
+    void lookups_LoadSnapshotOnce() {
+        // Given
+        when(roleMapper.findAllRoles()).thenReturn(Arrays.asList(role(1L, "USER"), role(2L, "ADMIN")));
+
+        // When
+        List<Role> roles = roleCatalog.getAll();
+        Role admin = roleCatalog.findById(2L);
+        Role user = roleCatalog.findByName("USER");
+
+        // Then
+        assertEquals(2, roles.size());
+        assertSame(roles.get(1), admin);
+        assertSame(roles.get(0), user);
+        assertNull(roleCatalog.findById(3L));
+        assertThrows(UnsupportedOperationException.class, () -> roles.add(role(3L, "GUEST")));
+        verify(roleMapper, times(1)).findAllRoles();
+    }
+
+    @Test
+    void invalidate_SwapsSnapshotAfterCommit() {
+        // Given
+        when(roleMapper.findAllRoles())
+            .thenReturn(Collections.singletonList(role(1L, "USER")))
+            .thenReturn(Arrays.asList(role(1L, "USER"), role(2L, "ADMIN")));
+        List<Role> before = roleCatalog.getAll();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            roleCatalog.invalidate();
+
+            // Then
+            assertNull(roleCatalog.findByName("ADMIN"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNotNull(roleCatalog.findByName("ADMIN"));
+        assertEquals(1, before.size());
+        assertEquals(1L, roleCatalog.getVersion());
+        verify(roleMapper, times(2)).findAllRoles();
+    }
+
+    @Test
+    void invalidate_DuringLoadMakesLoadedSnapshotStale() {
+        // Given
+        when(roleMapper.findAllRoles())
+            .thenAnswer(invocation -> {
+                // 加载过程中有角色变更提交
+                roleCatalog.invalidate();
+                return Collections.singletonList(role(1L, "USER"));
+            })
+            .thenReturn(Arrays.asList(role(1L, "USER"), role(2L, "ADMIN")));
+
+        // When
+        roleCatalog.getAll();
+        List<Role> roles = roleCatalog.getAll();
+
+        // Then
+        assertEquals(2, roles.size());
+        verify(roleMapper, times(2)).findAllRoles();
+    }
+
+    @Test
+    void intern_ReplacesRolesWithSharedInstances() {
+        // Given
+        when(roleMapper.findAllRoles()).thenReturn(Arrays.asList(role(1L, "USER"), role(2L, "ADMIN")));
+        Role unknown = role(9L, "GUEST");
+
+        // When
+        List<Role> first = roleCatalog.intern(Arrays.asList(role(1L, "USER"), unknown));
+        List<Role> second = roleCatalog.intern(Collections.singletonList(role(1L, "USER")));
+
+        // Then
+        assertSame(roleCatalog.findById(1L), first.get(0));
+        assertSame(first.get(0), second.get(0));
+        assertSame(unknown, first.get(1));
+    }
+
+    @Test
+    void lookups_ReturnReadOnlyRoles() {
+        // Given
+        Role loaded = role(1L, "USER");
+        when(roleMapper.findAllRoles()).thenReturn(Collections.singletonList(loaded));
+
+        // When
+        Role role = roleCatalog.findByName("USER");
+
+        // Then
+        assertThrows(UnsupportedOperationException.class, () -> role.setName("HACKED"));
+        assertThrows(UnsupportedOperationException.class, () -> roleCatalog.getAll().get(0).setDescription("x"));
+        assertThrows(UnsupportedOperationException.class,
+            () -> roleCatalog.intern(Collections.singletonList(role(1L, "USER"))).get(0).setId(2L));
+        // 快照复制了加载的角色，修改原查询结果不影响目录
+        loaded.setName("CHANGED");
+        assertEquals("USER", roleCatalog.findById(1L).getName());
+        assertSame(role, roleCatalog.findByName("USER"));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.UserRole;
+import com.example.usermanagement.mapper.UserRoleMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleMembershipIndexTest {
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<UserRole> cursorOf(UserRole... userRoles) {
+        Cursor<UserRole> cursor = mock(Cursor.class);
+        List<UserRole> rows = Arrays.asList(userRoles);
+        when(cursor.iterator()).thenAnswer(invocation -> rows.iterator());
+        return cursor;
+    }
+
+    @Test
+    void lookups_LoadIndexOnce() {
+        // Given
+        Cursor<UserRole> cursor = cursorOf(new UserRole(1L, 1L), new UserRole(2L, 1L), new UserRole(2L, 2L));
+        when(userRoleMapper.streamAll()).thenReturn(cursor);
+
+        // When
+        boolean adminIsAdmin = roleMembershipIndex.contains(2L, 2L);
+        boolean userIsAdmin = roleMembershipIndex.contains(2L, 1L);
+        int userCount = roleMembershipIndex.count(1L);
+        List<Long> userIds = roleMembershipIndex.userIds(1L);
+
+        // Then
+        assertTrue(adminIsAdmin);
+        assertFalse(userIsAdmin);
+        assertEquals(2, userCount);
+        assertEquals(Arrays.asList(1L, 2L), userIds);
+        assertEquals(0, roleMembershipIndex.count(3L));
+        assertEquals(2, roleMembershipIndex.counts().get(1L));
+        assertEquals(1, roleMembershipIndex.counts().get(2L));
+        assertEquals(3L, roleMembershipIndex.getMembershipCount());
+        assertTrue(roleMembershipIndex.getMemoryBytes() > 0);
+        verify(userRoleMapper, times(1)).streamAll();
+    }
+
+    @Test
+    void mutations_AppliedAfterCommit() {
+        // Given
+        Cursor<UserRole> cursor = cursorOf(new UserRole(1L, 1L));
+        when(userRoleMapper.streamAll()).thenReturn(cursor);
+        roleMembershipIndex.reload();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            roleMembershipIndex.rolesRemoved(1L, Collections.singletonList(1L));
+            roleMembershipIndex.rolesAdded(1L, Arrays.asList(2L, 2L));
+
+            // Then
+            assertTrue(roleMembershipIndex.contains(1L, 1L));
+            assertFalse(roleMembershipIndex.contains(2L, 1L));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(roleMembershipIndex.contains(1L, 1L));
+        assertTrue(roleMembershipIndex.contains(2L, 1L));
+        assertEquals(0, roleMembershipIndex.count(1L));
+        assertEquals(1, roleMembershipIndex.count(2L));
+    }
+
+    @Test
+    void reload_ReplaysMutationsCommittedDuringScan() {
+        // Given
+        Cursor<UserRole> cursor = cursorOf(new UserRole(1L, 1L), new UserRole(2L, 1L));
+        when(userRoleMapper.streamAll()).thenAnswer(invocation -> {
+            // 扫描期间有变更提交，扫描结果中仍是变更前的数据
+            roleMembershipIndex.rolesRemoved(2L, Collections.singletonList(1L));
+            roleMembershipIndex.rolesAdded(3L, Collections.singletonList(1L));
+            return cursor;
+        });
+
+        // When
+        roleMembershipIndex.reload();
+
+        // Then
+        assertEquals(Arrays.asList(1L, 3L), roleMembershipIndex.userIds(1L));
+        assertEquals(2, roleMembershipIndex.count(1L));
+    }
+
+    @Test
+    void lookups_SupportUserIdsBeyondIntRange() {
+        // Given
+        long largeUserId = Integer.MAX_VALUE + 10L;
+        Cursor<UserRole> cursor = cursorOf(new UserRole(largeUserId, 1L), new UserRole(3L, 1L));
+        when(userRoleMapper.streamAll()).thenReturn(cursor);
+        roleMembershipIndex.reload();
+
+        // When
+        roleMembershipIndex.rolesAdded(largeUserId + 1, Collections.singletonList(1L));
+        roleMembershipIndex.usersRemoved(1L, Collections.singletonList(largeUserId));
+
+        // Then
+        assertFalse(roleMembershipIndex.contains(1L, largeUserId));
+        assertTrue(roleMembershipIndex.contains(1L, largeUserId + 1));
+        assertEquals(Arrays.asList(3L, largeUserId + 1), roleMembershipIndex.userIds(1L));
+        assertEquals(2, roleMembershipIndex.count(1L));
+    }
+
+    @Test
+    void roleDeleted_RemovesBitmap() {
+        // Given
+        Cursor<UserRole> cursor = cursorOf(new UserRole(1L, 5L));
+        when(userRoleMapper.streamAll()).thenReturn(cursor);
+        roleMembershipIndex.reload();
+
+        // When
+        roleMembershipIndex.roleDeleted(5L);
+
+        // Then
+        assertFalse(roleMembershipIndex.contains(5L, 1L));
+        assertEquals(0L, roleMembershipIndex.getMembershipCount());
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.RoleAssignmentResult;
+import com.example.usermanagement.dto.RoleBatchDeleteResult;
+import com.example.usermanagement.dto.RoleMembershipOutcome;
+import com.example.usermanagement.dto.RoleUsage;
+import com.example.usermanagement.dto.RoleUserCount;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.UserRole;
+import com.example.usermanagement.exception.BusinessException;
+import com.example.usermanagement.mapper.RoleMapper;
+import com.example.usermanagement.mapper.UserRoleMapper;
+import com.example.usermanagement.security.UserPrincipalCache;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleServiceTest {
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Mock
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private UserStatisticsService userStatisticsService;
+
+    @Mock
+    private RoleCatalog roleCatalog;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @InjectMocks
+    private RoleService roleService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roleService, "batchChunkSize", 2);
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+    @Test
+    void getAllRolesWithUsage_CountsFromMembershipIndex() {
+        // Given
+        when(roleCatalog.getAll()).thenReturn(Arrays.asList(role(1L, "USER"), role(2L, "ADMIN")));
+        when(roleMembershipIndex.counts()).thenReturn(Collections.singletonMap(1L, 3));
+
+        // When
+        List<RoleUsage> roles = roleService.getAllRolesWithUsage();
+
+        // Then
+        assertEquals(2, roles.size());
+        assertEquals(3, roles.get(0).getUserCount());
+        assertFalse(roles.get(0).isDeletable());
+        assertEquals("ADMIN", roles.get(1).getName());
+        assertEquals(0, roles.get(1).getUserCount());
+        assertTrue(roles.get(1).isDeletable());
+        verifyNoInteractions(roleMapper, userRoleMapper);
+    }
+
+    @Test
+    void assignRolesToUser_AppliesOnlyDelta() {
+        // Given
+        when(roleCatalog.findById(2L)).thenReturn(role(2L, "ADMIN"));
+        when(roleCatalog.findById(3L)).thenReturn(role(3L, "AUDITOR"));
+        when(userRoleMapper.findRoleIdsByUserId(5L)).thenReturn(Arrays.asList(1L, 2L));
+
+        // When
+        RoleAssignmentResult result = roleService.assignRolesToUser(5L, Arrays.asList(2L, 3L, 3L));
+
+        // Then
+        assertTrue(result.isChanged());
+        assertEquals(Collections.singletonList(3L), result.getAddedRoleIds());
+        assertEquals(Collections.singletonList(1L), result.getRemovedRoleIds());
+        verify(userRoleMapper).deleteByUserIdAndRoleIds(5L, Collections.singletonList(1L));
+        verify(userRoleMapper).insertRolesIfAbsent(eq(5L), eq(Collections.singletonList(3L)), any());
+        verify(userRoleMapper, never()).deleteByUserId(any());
+        verify(securityVersionRegistry).bump(5L);
+        verify(userPrincipalCache).evict(5L);
+        verify(roleMembershipIndex).rolesRemoved(5L, Collections.singletonList(1L));
+        verify(roleMembershipIndex).rolesAdded(5L, Collections.singletonList(3L));
+        verify(userStatisticsService).rolesChanged(Collections.singletonList(1L), Collections.singletonList(3L));
+    }
+
+    @Test
+    void assignRolesToUser_NoOpWhenUnchanged() {
+        // Given
+        when(roleCatalog.findById(anyLong())).thenAnswer(invocation -> role(invocation.getArgument(0), "ROLE"));
+        when(userRoleMapper.findRoleIdsByUserId(5L)).thenReturn(Arrays.asList(1L, 2L));
+
+        // When
+        RoleAssignmentResult result = roleService.assignRolesToUser(5L, Arrays.asList(2L, 1L));
+
+        // Then
+        assertFalse(result.isChanged());
+        verify(userRoleMapper, never()).deleteByUserIdAndRoleIds(any(), any());
+        verify(userRoleMapper, never()).insertRolesIfAbsent(any(), any(), any());
+        verifyNoInteractions(securityVersionRegistry, userPrincipalCache, roleMembershipIndex, userStatisticsService);
+    }
+
+    @Test
+    void assignRolesToUser_RejectsUnknownRole() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> roleService.assignRolesToUser(5L, Collections.singletonList(9L)));
+        assertEquals("ROLE_NOT_FOUND", exception.getCode());
+        verifyNoInteractions(userRoleMapper);
+    }
+
+    @Test
+    void addUsersToRole_ReportsOutcomePerUserInChunks() {
+        // Given
+        when(roleCatalog.findById(2L)).thenReturn(role(2L, "ADMIN"));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Arrays.asList(1L, 3L)))
+            .thenReturn(Arrays.asList(new UserRole(1L, null), new UserRole(3L, 2L)));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Collections.singletonList(9L)))
+            .thenReturn(Collections.<UserRole>emptyList());
+        when(userRoleMapper.insertUsersIfAbsent(eq(2L), eq(Collections.singletonList(1L)), any()))
+            .thenReturn(Collections.singletonList(1L));
+
+        // When
+        Map<Long, RoleMembershipOutcome> outcomes = roleService.addUsersToRole(2L, Arrays.asList(1L, 3L, 1L, 9L));
+
+        // Then
+        assertEquals(3, outcomes.size());
+        assertEquals(RoleMembershipOutcome.ADDED, outcomes.get(1L));
+        assertEquals(RoleMembershipOutcome.ALREADY_MEMBER, outcomes.get(3L));
+        assertEquals(RoleMembershipOutcome.USER_NOT_FOUND, outcomes.get(9L));
+        verify(userRoleMapper, times(1)).insertUsersIfAbsent(eq(2L), eq(Collections.singletonList(1L)), any());
+        verify(securityVersionRegistry).bump(1L);
+        verify(userPrincipalCache).evict(Collections.singletonList(1L));
+        verify(roleMembershipIndex).usersAdded(2L, Collections.singletonList(1L));
+        verify(userStatisticsService).rolesChanged(Collections.<Long>emptyList(), Collections.singletonList(2L));
+    }
+
+    @Test
+    void removeUsersFromRole_DeletesOnlyMembers() {
+        // Given
+        when(roleCatalog.findById(2L)).thenReturn(role(2L, "ADMIN"));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Arrays.asList(1L, 3L)))
+            .thenReturn(Arrays.asList(new UserRole(1L, null), new UserRole(3L, 2L)));
+        when(userRoleMapper.deleteByRoleIdAndUserIds(2L, Collections.singletonList(3L)))
+            .thenReturn(Collections.singletonList(3L));
+
+        // When
+        Map<Long, RoleMembershipOutcome> outcomes = roleService.removeUsersFromRole(2L, Arrays.asList(1L, 3L));
+
+        // Then
+        assertEquals(RoleMembershipOutcome.NOT_MEMBER, outcomes.get(1L));
+        assertEquals(RoleMembershipOutcome.REMOVED, outcomes.get(3L));
+        verify(userRoleMapper).deleteByRoleIdAndUserIds(2L, Collections.singletonList(3L));
+        verify(roleMembershipIndex).usersRemoved(2L, Collections.singletonList(3L));
+        verify(userStatisticsService).rolesChanged(Collections.singletonList(2L), Collections.<Long>emptyList());
+    }
+
+    @Test
+    void addUsersToRole_CountsOnlyRowsActuallyInserted() {
+        // Given
+        ReflectionTestUtils.setField(roleService, "batchChunkSize", 3);
+        when(roleCatalog.findById(2L)).thenReturn(role(2L, "ADMIN"));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Arrays.asList(1L, 3L, 4L)))
+            .thenReturn(Arrays.asList(new UserRole(1L, null), new UserRole(3L, null), new UserRole(4L, null)));
+        // 用户3在查询后被并发添加了该角色，用户4被并发删除
+        when(userRoleMapper.insertUsersIfAbsent(eq(2L), eq(Arrays.asList(1L, 3L, 4L)), any()))
+            .thenReturn(Collections.singletonList(1L));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Arrays.asList(3L, 4L)))
+            .thenReturn(Collections.singletonList(new UserRole(3L, 2L)));
+
+        // When
+        Map<Long, RoleMembershipOutcome> outcomes = roleService.addUsersToRole(2L, Arrays.asList(1L, 3L, 4L));
+
+        // Then
+        assertEquals(RoleMembershipOutcome.ADDED, outcomes.get(1L));
+        assertEquals(RoleMembershipOutcome.ALREADY_MEMBER, outcomes.get(3L));
+        assertEquals(RoleMembershipOutcome.USER_NOT_FOUND, outcomes.get(4L));
+        verify(securityVersionRegistry, never()).bump(3L);
+        verify(roleMembershipIndex).usersAdded(2L, Collections.singletonList(1L));
+        verify(userStatisticsService).rolesChanged(Collections.<Long>emptyList(), Collections.singletonList(2L));
+    }
+
+    @Test
+    void removeUsersFromRole_NothingDeletedLeavesStatisticsUntouched() {
+        // Given
+        when(roleCatalog.findById(2L)).thenReturn(role(2L, "ADMIN"));
+        when(userRoleMapper.findMembershipsOfUsers(2L, Collections.singletonList(3L)))
+            .thenReturn(Collections.singletonList(new UserRole(3L, 2L)));
+        when(userRoleMapper.deleteByRoleIdAndUserIds(2L, Collections.singletonList(3L)))
+            .thenReturn(Collections.<Long>emptyList());
+
+        // When
+        Map<Long, RoleMembershipOutcome> outcomes = roleService.removeUsersFromRole(2L, Collections.singletonList(3L));
+
+        // Then
+        assertEquals(RoleMembershipOutcome.NOT_MEMBER, outcomes.get(3L));
+        verifyNoInteractions(roleMembershipIndex, userStatisticsService, userPrincipalCache);
+    }
+
+    @Test
+    void addUsersToRole_RoleNotFound() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> roleService.addUsersToRole(9L, Collections.singletonList(1L)));
+        assertEquals("ROLE_NOT_FOUND", exception.getCode());
+        verifyNoInteractions(userRoleMapper);
+    }
+
+    @Test
+    void batchDeleteRoles_AllOrNothingRejectsRoleInUse() {
+        // Given
+        when(roleMapper.countUsersByRoleIds(Arrays.asList(3L, 2L)))
+            .thenReturn(Arrays.asList(new RoleUserCount(2L, "ADMIN", 4L), new RoleUserCount(3L, "AUDITOR", 0L)));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> roleService.batchDeleteRoles(Arrays.asList(3L, 2L), false));
+        assertEquals("CANNOT_DELETE_ROLE_IN_USE", exception.getCode());
+        assertTrue(exception.getMessage().contains("ADMIN（4 个用户）"));
+        verify(roleMapper, never()).deleteUnusedByIds(any());
+        verifyNoInteractions(roleCatalog, userStatisticsService);
+    }
+
+    @Test
+    void batchDeleteRoles_PartialDeletesUnusedInOneStatement() {
+        // Given
+        when(roleMapper.countUsersByRoleIds(Arrays.asList(3L, 2L, 9L)))
+            .thenReturn(Arrays.asList(new RoleUserCount(2L, "ADMIN", 4L), new RoleUserCount(3L, "AUDITOR", 0L)));
+        when(roleMapper.deleteUnusedByIds(Collections.singletonList(3L))).thenReturn(1);
+
+        // When
+        RoleBatchDeleteResult result = roleService.batchDeleteRoles(Arrays.asList(3L, 2L, 9L, 3L), true);
+
+        // Then
+        assertEquals(Collections.singletonList(3L), result.getDeletedRoleIds());
+        assertEquals(1, result.getBlockedRoles().size());
+        assertEquals(4L, result.getBlockedRoles().get(0).getUserCount());
+        assertEquals(Collections.singletonList(9L), result.getNotFoundRoleIds());
+        verify(roleCatalog).invalidate();
+        verify(roleMembershipIndex).roleDeleted(3L);
+        verify(userStatisticsService).markStale();
+    }
+
+    @Test
+    void batchDeleteRoles_RoleAssignedAfterCheckIsReportedBlocked() {
+        // Given
+        when(roleMapper.countUsersByRoleIds(Arrays.asList(3L, 4L)))
+            .thenReturn(Arrays.asList(new RoleUserCount(3L, "AUDITOR", 0L), new RoleUserCount(4L, "GUEST", 0L)))
+            .thenReturn(Collections.singletonList(new RoleUserCount(4L, "GUEST", 1L)));
+        when(roleMapper.deleteUnusedByIds(Arrays.asList(3L, 4L))).thenReturn(1);
+
+        // When
+        RoleBatchDeleteResult result = roleService.batchDeleteRoles(Arrays.asList(3L, 4L), true);
+
+        // Then
+        assertEquals(Collections.singletonList(3L), result.getDeletedRoleIds());
+        assertEquals(1, result.getBlockedRoles().size());
+        assertEquals(4L, result.getBlockedRoles().get(0).getRoleId());
+    }
+}
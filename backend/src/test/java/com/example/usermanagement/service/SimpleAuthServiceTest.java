@@ -30,6 +30,9 @@ public class SimpleAuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     @InjectMocks
     private AuthService authService;
 
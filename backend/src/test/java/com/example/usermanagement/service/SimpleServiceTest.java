@@ -24,6 +24,9 @@ public class SimpleServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     @InjectMocks
     private UserService userService;
 
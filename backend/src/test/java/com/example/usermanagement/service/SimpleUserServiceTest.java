@@ -19,6 +19,9 @@ public class SimpleUserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     @InjectMocks
     private UserService userService;
 
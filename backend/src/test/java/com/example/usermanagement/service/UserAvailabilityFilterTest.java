@@ -0,0 +1,123 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.UserMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityFilterTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userAvailabilityFilter, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(userAvailabilityFilter, "minCapacity", 1000);
+    }
+
+    private static User user(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<User> cursorOf(User... users) {
+        Cursor<User> cursor = mock(Cursor.class);
+        List<User> rows = Arrays.asList(users);
+        when(cursor.iterator()).thenAnswer(invocation -> rows.iterator());
+        return cursor;
+    }
+
+    @Test
+    void isUsernameFree_NotLoadedFallsBackToDatabase() {
+        // When & Then
+        assertFalse(userAvailabilityFilter.isUsernameFree("alice"));
+        assertFalse(userAvailabilityFilter.isEmailFree("alice@example.com"));
+    }
+
+    @Test
+    void reload_TakenValuesAreNeverReportedFree() {
+        // Given
+        Cursor<User> cursor = cursorOf(user("alice", "alice@example.com"), user("bob", "bob@example.com"));
+        when(userMapper.countUsers(null, null, null)).thenReturn(2L);
+        when(userMapper.streamUsernamesAndEmails()).thenReturn(cursor);
+
+        // When
+        userAvailabilityFilter.reload();
+
+        // Then
+        assertFalse(userAvailabilityFilter.isUsernameFree("alice"));
+        assertFalse(userAvailabilityFilter.isEmailFree("bob@example.com"));
+        assertTrue(userAvailabilityFilter.isUsernameFree("carol"));
+        assertTrue(userAvailabilityFilter.isEmailFree("carol@example.com"));
+        assertTrue(userAvailabilityFilter.getMemoryBytes() > 0);
+    }
+
+    @Test
+    void add_DuringReloadIsKeptInRebuiltFilter() {
+        // Given
+        Cursor<User> cursor = cursorOf(user("alice", "alice@example.com"));
+        when(userMapper.countUsers(null, null, null)).thenReturn(1L);
+        when(userMapper.streamUsernamesAndEmails()).thenAnswer(invocation -> {
+            // 扫描期间有用户注册，扫描结果中没有该用户
+            userAvailabilityFilter.add("carol", "carol@example.com");
+            return cursor;
+        });
+
+        // When
+        userAvailabilityFilter.reload();
+
+        // Then
+        assertFalse(userAvailabilityFilter.isUsernameFree("carol"));
+        assertFalse(userAvailabilityFilter.isEmailFree("carol@example.com"));
+    }
+
+    @Test
+    void bloomFilter_FalsePositiveRateNearConfigured() {
+        // Given
+        UserAvailabilityFilter.BloomFilter filter = new UserAvailabilityFilter.BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.add("user" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertTrue(falsePositives < 200, "误判数: " + falsePositives);
+        verifyNoInteractions(userMapper);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.CountStrategy;
+import com.example.usermanagement.dto.PageResponse;
+import com.example.usermanagement.exception.BusinessException;
+import com.example.usermanagement.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCountServiceTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @InjectMocks
+    private UserCountService userCountService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userCountService, "maxSize", 100L);
+        ReflectionTestUtils.setField(userCountService, "ttlSeconds", 30L);
+        userCountService.init();
+    }
+
+    @Test
+    void count_Exact() {
+        // Given
+        when(userMapper.countUsers("test", 1, null)).thenReturn(42L);
+
+        // When
+        UserCountService.Count count = userCountService.count(CountStrategy.EXACT, "test", 1, null);
+
+        // Then
+        assertEquals(42L, count.getTotal());
+        assertEquals(CountStrategy.EXACT, count.getStrategy());
+    }
+
+    @Test
+    void count_CachedPerFilterTuple() {
+        // Given
+        when(userMapper.countUsers(null, 1, null)).thenReturn(10L);
+        when(userMapper.countUsers(null, 0, null)).thenReturn(3L);
+
+        // When
+        userCountService.count(CountStrategy.CACHED, null, 1, null);
+        UserCountService.Count enabled = userCountService.count(CountStrategy.CACHED, null, 1, null);
+        UserCountService.Count disabled = userCountService.count(CountStrategy.CACHED, null, 0, null);
+
+        // Then
+        assertEquals(10L, enabled.getTotal());
+        assertEquals(CountStrategy.CACHED, enabled.getStrategy());
+        assertEquals(3L, disabled.getTotal());
+        verify(userMapper, times(1)).countUsers(null, 1, null);
+        verify(userMapper, times(1)).countUsers(null, 0, null);
+    }
+
+    @Test
+    void count_RoleOnlyFromMembershipIndex() {
+        // Given
+        when(roleMembershipIndex.count(2L)).thenReturn(7);
+
+        // When
+        UserCountService.Count exact = userCountService.count(CountStrategy.EXACT, null, null, 2L);
+        UserCountService.Count cached = userCountService.count(CountStrategy.CACHED, null, null, 2L);
+
+        // Then
+        assertEquals(7L, exact.getTotal());
+        assertEquals(CountStrategy.EXACT, exact.getStrategy());
+        assertEquals(7L, cached.getTotal());
+        assertEquals(CountStrategy.EXACT, cached.getStrategy());
+        verify(userMapper, never()).countUsers(any(), any(), any());
+    }
+
+    @Test
+    void count_EstimatedFromPlan() {
+        // Given
+        when(userMapper.explainUsers(null, null, 2L)).thenReturn(Collections.singletonList(
+            "Hash Semi Join  (cost=28.50..19654.33 rows=1201532 width=4)"));
+
+        // When
+        UserCountService.Count count = userCountService.count(CountStrategy.ESTIMATED, null, null, 2L);
+
+        // Then
+        assertEquals(1201532L, count.getTotal());
+        assertEquals(CountStrategy.ESTIMATED, count.getStrategy());
+        verify(userMapper, never()).countUsers(any(), any(), any());
+    }
+
+    @Test
+    void count_EstimatedFallsBackToExactWithoutRowEstimate() {
+        // Given
+        when(userMapper.explainUsers(null, null, null)).thenReturn(Collections.singletonList(
+            "SELECT 1 FROM PUBLIC.USERS U /* PUBLIC.USERS.tableScan */ WHERE 1 = 1"));
+        when(userMapper.countUsers(null, null, null)).thenReturn(25L);
+
+        // When
+        UserCountService.Count count = userCountService.count(CountStrategy.ESTIMATED, null, null, null);
+
+        // Then
+        assertEquals(25L, count.getTotal());
+        assertEquals(CountStrategy.EXACT, count.getStrategy());
+    }
+
+    @Test
+    void count_None() {
+        // When
+        UserCountService.Count count = userCountService.count(CountStrategy.NONE, null, null, null);
+
+        // Then
+        assertEquals(PageResponse.TOTAL_UNKNOWN, count.getTotal());
+        assertEquals(CountStrategy.NONE, count.getStrategy());
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void countStrategy_FromIsCaseInsensitive() {
+        assertEquals(CountStrategy.CACHED, CountStrategy.from(" Cached "));
+        BusinessException exception = assertThrows(BusinessException.class, () -> CountStrategy.from("approx"));
+        assertEquals("INVALID_COUNT_STRATEGY", exception.getCode());
+    }
+}
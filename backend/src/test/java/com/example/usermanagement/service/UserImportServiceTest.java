@@ -0,0 +1,321 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.UserFileFormat;
+import com.example.usermanagement.dto.UserImportError;
+import com.example.usermanagement.dto.UserImportResult;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.entity.UserRole;
+import com.example.usermanagement.exception.BusinessException;
+import com.example.usermanagement.mapper.UserMapper;
+import com.example.usermanagement.mapper.UserRoleMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Mock
+    private RoleCatalog roleCatalog;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserStatisticsService userStatisticsService;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
+    @InjectMocks
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userImportService, "validator",
+            Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(userImportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(userImportService, "chunkSize", 2);
+        ReflectionTestUtils.setField(userImportService, "hashingThreads", 2);
+        ReflectionTestUtils.setField(userImportService, "hashingQueueCapacity", 10);
+        ReflectionTestUtils.setField(userImportService, "maxErrors", 100);
+        userImportService.init();
+
+        Role userRole = new Role();
+        userRole.setId(1L);
+        Role adminRole = new Role();
+        adminRole.setId(2L);
+        lenient().when(roleCatalog.getAll()).thenReturn(Arrays.asList(userRole, adminRole));
+        lenient().when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed:" + invocation.getArgument(0));
+        lenient().when(userMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId((long) user.getUsername().hashCode()));
+            return users.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        userImportService.shutdown();
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importUsers_CsvInChunksWithRowErrors() throws Exception {
+        // Given
+        String csv = "username,email,password,status,roles\n" +
+            "alice,alice@example.com,password1,1,1;2\n" +
+            "bob,bob@example.com,short,1,1\n" +
+            "\"carol, jr\",carol@example.com,\"pass\"\"word\",0,1\n" +
+            "dave,dave@example.com,password1,1,9\n" +
+            "erin,erin@example.com,password1,1,1\n" +
+            "erin,erin2@example.com,password1,1,1\n" +
+            "alice,alice2@example.com,password1,1,1\n";
+        // 之前批次写入的用户名由冲突查询返回
+        Set<String> inserted = new HashSet<>();
+        when(userMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> {
+                user.setId((long) user.getUsername().hashCode());
+                inserted.add(user.getUsername());
+            });
+            return users.size();
+        });
+        when(userMapper.findExistingUsernames(anyList())).thenAnswer(invocation -> {
+            List<String> usernames = invocation.getArgument(0);
+            return usernames.stream().filter(inserted::contains).collect(Collectors.toList());
+        });
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(7, result.getTotalRows());
+        assertEquals(3, result.getImportedCount());
+        assertEquals(4, result.getErrorCount());
+        assertEquals(Arrays.asList(3L, 5L, 7L, 8L),
+            result.getErrors().stream().map(UserImportError::getLine).collect(Collectors.toList()));
+        assertEquals("密码长度至少8位", result.getErrors().get(0).getMessage());
+        assertEquals("角色不存在: 9", result.getErrors().get(1).getMessage());
+        assertEquals("用户名在文件中重复", result.getErrors().get(2).getMessage());
+        assertEquals("用户名已存在", result.getErrors().get(3).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<User>> users = ArgumentCaptor.forClass(List.class);
+        verify(userMapper, times(2)).batchInsert(users.capture());
+        User carol = users.getAllValues().get(0).get(1);
+        assertEquals("carol, jr", carol.getUsername());
+        assertEquals("hashed:pass\"word", carol.getPassword());
+        assertEquals(0, carol.getStatus());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserRole>> userRoles = ArgumentCaptor.forClass(List.class);
+        verify(userRoleMapper, times(2)).batchInsert(userRoles.capture());
+        assertEquals(3, userRoles.getAllValues().get(0).size());
+        verify(userStatisticsService, times(3)).userCreated(any(User.class));
+    }
+
+    @Test
+    void importUsers_NdjsonSkipsExistingAndMalformedRows() throws Exception {
+        // Given
+        String ndjson = "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"password1\",\"roles\":[1]}\n" +
+            "\n" +
+            "{\"username\":\"bob\",\n" +
+            "{\"username\":\"taken\",\"email\":\"taken@example.com\",\"password\":\"password1\",\"roles\":[1]}\n";
+        when(userMapper.findExistingUsernames(anyList())).thenReturn(Collections.singletonList("taken"));
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(ndjson), UserFileFormat.NDJSON);
+
+        // Then
+        assertEquals(3, result.getTotalRows());
+        assertEquals(1, result.getImportedCount());
+        UserImportError malformed = result.getErrors().get(0);
+        assertEquals(3L, malformed.getLine());
+        assertEquals("JSON格式错误", malformed.getMessage());
+        UserImportError taken = result.getErrors().get(1);
+        assertEquals(4L, taken.getLine());
+        assertEquals("taken", taken.getUsername());
+        assertEquals("用户名已存在", taken.getMessage());
+    }
+
+    @Test
+    void importUsers_RetriesRowsWhenChunkConflicts() throws Exception {
+        // Given
+        String csv = "username,email,password,roles\n" +
+            "alice,alice@example.com,password1,1\n" +
+            "bob,bob@example.com,password1,1\n";
+        when(userMapper.findExistingUsernames(anyList())).thenReturn(Collections.emptyList());
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+        when(userMapper.batchInsert(anyList()))
+            .thenThrow(new DuplicateKeyException("duplicate"))
+            .thenReturn(1)
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(userMapper.countByUsername("bob")).thenReturn(1);
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("bob", result.getErrors().get(0).getUsername());
+        assertEquals("用户名已存在", result.getErrors().get(0).getMessage());
+        verify(userAvailabilityFilter).add("bob", null);
+        verify(userMapper, times(3)).batchInsert(anyList());
+    }
+
+    @Test
+    void importUsers_CapsReportedErrorsButCountsAll() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(userImportService, "maxErrors", 2);
+        StringBuilder csv = new StringBuilder("username,email,password,roles\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("user").append(i).append(",user").append(i).append("@example.com,short,1\n");
+        }
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv.toString()), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(5, result.getTotalRows());
+        assertEquals(0, result.getImportedCount());
+        assertEquals(5, result.getErrorCount());
+        assertEquals(2, result.getErrors().size());
+        assertEquals(2L, result.getErrors().get(0).getLine());
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    void importUsers_HashingFailureRejectsOnlyThatRow() throws Exception {
+        // Given
+        String csv = "username,email,password,roles\n" +
+            "alice,alice@example.com,password1,1\n" +
+            "bob,bob@example.com,password2,1\n";
+        when(passwordEncoder.encode("password2")).thenThrow(new IllegalStateException("encoder failure"));
+        when(userMapper.findExistingUsernames(anyList())).thenReturn(Collections.emptyList());
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(3L, result.getErrors().get(0).getLine());
+        assertEquals("密码处理失败", result.getErrors().get(0).getMessage());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<User>> users = ArgumentCaptor.forClass(List.class);
+        verify(userMapper).batchInsert(users.capture());
+        assertEquals("alice", users.getValue().get(0).getUsername());
+        assertEquals(1, users.getValue().size());
+    }
+
+    @Test
+    void importUsers_HashesOnImportThreadWhenQueueFull() throws Exception {
+        // Given
+        userImportService.shutdown();
+        ReflectionTestUtils.setField(userImportService, "chunkSize", 4);
+        ReflectionTestUtils.setField(userImportService, "hashingThreads", 1);
+        ReflectionTestUtils.setField(userImportService, "hashingQueueCapacity", 1);
+        userImportService.init();
+        Set<String> hashingThreads = Collections.synchronizedSet(new HashSet<>());
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            hashingThreads.add(Thread.currentThread().getName());
+            Thread.sleep(50);
+            return "hashed";
+        });
+        when(userMapper.findExistingUsernames(anyList())).thenReturn(Collections.emptyList());
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+        StringBuilder csv = new StringBuilder("username,email,password,roles\n");
+        for (int i = 0; i < 4; i++) {
+            csv.append("user").append(i).append(",user").append(i).append("@example.com,password1,1\n");
+        }
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv.toString()), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(4, result.getImportedCount());
+        assertTrue(hashingThreads.contains(Thread.currentThread().getName()), "队列满时应由导入线程计算哈希");
+        assertTrue(hashingThreads.contains("user-import-hashing-1"));
+    }
+
+    @Test
+    void importUsers_ReportsRoleDeletedDuringImport() throws Exception {
+        // Given
+        String csv = "username,email,password,roles\n" +
+            "alice,alice@example.com,password1,2\n";
+        when(userMapper.findExistingUsernames(anyList())).thenReturn(Collections.emptyList());
+        when(userMapper.findExistingEmails(anyList())).thenReturn(Collections.emptyList());
+        // 角色2在读取角色列表之后被删除，写入关联时违反外键约束
+        when(userRoleMapper.batchInsert(anyList()))
+            .thenThrow(new DataIntegrityViolationException("fk_user_roles_role"));
+        when(roleCatalog.findById(2L)).thenReturn(null);
+
+        // When
+        UserImportResult result = userImportService.importUsers(input(csv), UserFileFormat.CSV);
+
+        // Then
+        assertEquals(0, result.getImportedCount());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("角色不存在: 2", result.getErrors().get(0).getMessage());
+        verify(userAvailabilityFilter, never()).add(any(), any());
+    }
+
+    @Test
+    void importUsers_RejectsCsvWithoutRequiredColumns() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> userImportService.importUsers(input("username,email\nalice,alice@example.com\n"),
+                UserFileFormat.CSV));
+        assertEquals("INVALID_IMPORT_HEADER", exception.getCode());
+        verifyNoInteractions(userMapper);
+    }
+}
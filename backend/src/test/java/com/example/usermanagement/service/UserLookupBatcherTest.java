@@ -0,0 +1,95 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.UserMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupBatcherTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private UserLookupBatcher userLookupBatcher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userLookupBatcher, "batchWindowMillis", 50L);
+        ReflectionTestUtils.setField(userLookupBatcher, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(userLookupBatcher, "threads", 1);
+        userLookupBatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        userLookupBatcher.shutdown();
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    void load_FoldsLookupsWithinWindowIntoOneQuery() {
+        // Given
+        when(userMapper.findByIdsWithRoles(anyCollection())).thenReturn(Arrays.asList(user(1L), user(2L)));
+
+        // When
+        CompletableFuture<User> first = userLookupBatcher.load(1L);
+        CompletableFuture<User> again = userLookupBatcher.load(1L);
+        CompletableFuture<User> second = userLookupBatcher.load(2L);
+
+        // Then
+        assertEquals(1L, first.join().getId());
+        assertSame(first.join(), again.join());
+        assertEquals(2L, second.join().getId());
+        verify(userMapper, times(1)).findByIdsWithRoles(argThat((Collection<Long> ids) ->
+            ids.size() == 2 && ids.containsAll(Arrays.asList(1L, 2L))));
+    }
+
+    @Test
+    void load_FullBatchQueriedWithoutWaitingForWindow() {
+        // Given
+        ReflectionTestUtils.setField(userLookupBatcher, "batchWindowMillis", 60000L);
+        when(userMapper.findByIdsWithRoles(anyCollection())).thenReturn(Collections.singletonList(user(2L)));
+
+        // When
+        CompletableFuture<User> first = userLookupBatcher.load(1L);
+        CompletableFuture<User> second = userLookupBatcher.load(2L);
+        CompletableFuture<User> third = userLookupBatcher.load(3L);
+
+        // Then
+        assertNull(first.join());
+        assertEquals(2L, second.join().getId());
+        assertNull(third.join());
+    }
+
+    @Test
+    void find_RethrowsQueryFailure() {
+        // Given
+        when(userMapper.findByIdsWithRoles(anyCollection())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // When & Then
+        assertThrows(QueryTimeoutException.class, () -> userLookupBatcher.find(1L));
+    }
+}
@@ -10,14 +10,24 @@ import com.example.usermanagement.entity.UserRole;
 import com.example.usermanagement.exception.BusinessException;
 import com.example.usermanagement.mapper.UserMapper;
 import com.example.usermanagement.mapper.UserRoleMapper;
+import com.example.usermanagement.security.UserPrincipalCache;
+import com.example.usermanagement.security.UserSecurityVersionRegistry;
+import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -37,6 +47,33 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserSecurityVersionRegistry securityVersionRegistry;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private UserCountService userCountService;
+
+    @Mock
+    private UserStatisticsService userStatisticsService;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private RoleCatalog roleCatalog;
+
+    @Mock
+    private UserLookupBatcher userLookupBatcher;
+
+    @Mock
+    private UserAvailabilityFilter userAvailabilityFilter;
+
     @InjectMocks
     private UserService userService;
 
@@ -60,6 +97,7 @@ class UserServiceTest {
         testRole.setDescription("普通用户");
 
         testUser.setRoles(Arrays.asList(testRole));
+        lenient().when(roleCatalog.intern(any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -77,6 +115,44 @@ class UserServiceTest {
         verify(userMapper).findByIdWithRoles(1L);
     }
 
+    @Test
+    void lookupUsers_KeepsRequestedOrderAndSkipsMissing() {
+        // Given
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 1000);
+        User other = new User();
+        other.setId(2L);
+        other.setUsername("other");
+        when(userMapper.findByIdsWithRoles(Arrays.asList(2L, 9L, 1L))).thenReturn(Arrays.asList(testUser, other));
+
+        // When
+        List<UserResponse> result = userService.lookupUsers(Arrays.asList(2L, 9L, 1L, 2L));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("other", result.get(0).getUsername());
+        assertEquals("testuser", result.get(1).getUsername());
+        verify(userMapper, never()).findByIdWithRoles(any());
+    }
+
+    @Test
+    void getUserById_DoesNotMutateSharedUser() {
+        // Given
+        List<Role> loadedRoles = testUser.getRoles();
+        Role shared = new Role();
+        shared.setId(1L);
+        shared.setName("USER");
+        List<Role> interned = Collections.singletonList(shared);
+        when(userLookupBatcher.find(1L)).thenReturn(testUser);
+        when(roleCatalog.intern(loadedRoles)).thenReturn(interned);
+
+        // When
+        UserResponse response = userService.getUserById(1L);
+
+        // Then
+        assertSame(interned, response.getRoles());
+        assertSame(loadedRoles, testUser.getRoles());
+    }
+
     @Test
     void getUserProfile_UserNotFound() {
         // Given
@@ -184,6 +260,7 @@ class UserServiceTest {
         assertNotNull(result);
         verify(userMapper).insert(any(User.class));
         verify(userRoleMapper).insert(any(UserRole.class));
+        verify(userStatisticsService).userCreated(testUser);
     }
 
     @Test
@@ -201,6 +278,29 @@ class UserServiceTest {
         assertEquals("用户名已存在", exception.getMessage());
     }
 
+    @Test
+    void createUser_ConcurrentDuplicateOnInsertMapsToEmailExists() {
+        // Given - 检查时邮箱可用，插入时已被其他节点注册
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername("newuser");
+        request.setEmail("newuser@example.com");
+        request.setPassword("password123");
+        request.setStatus(1);
+        request.setRoles(Arrays.asList(1L));
+
+        when(userMapper.countByUsername("newuser")).thenReturn(0);
+        when(userMapper.countByEmail("newuser@example.com")).thenReturn(0, 1);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword123");
+        when(userMapper.insert(any(User.class))).thenThrow(new DuplicateKeyException("users_email_key"));
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> userService.createUser(request, 1L));
+        assertEquals("EMAIL_EXISTS", exception.getCode());
+        verify(userAvailabilityFilter).add(null, "newuser@example.com");
+        verify(userStatisticsService, never()).userCreated(any());
+    }
+
     @Test
     void updateUserStatus_Success() {
         // Given
@@ -211,6 +311,7 @@ class UserServiceTest {
 
         // Then
         verify(userMapper).updateStatus(eq(1L), eq(0), any(LocalDateTime.class));
+        verify(userStatisticsService).statusChanged(1, 0);
     }
 
     @Test
@@ -228,6 +329,7 @@ class UserServiceTest {
     void deleteUser_Success() {
         // Given
         when(userMapper.selectById(1L)).thenReturn(testUser);
+        when(userRoleMapper.findRoleIdsByUserId(1L)).thenReturn(Arrays.asList(1L));
 
         // When
         userService.deleteUser(1L, 2L);
@@ -235,6 +337,7 @@ class UserServiceTest {
         // Then
         verify(userRoleMapper).deleteByUserId(1L);
         verify(userMapper).deleteById(1L);
+        verify(userStatisticsService).userDeleted(testUser, Arrays.asList(1L));
     }
 
     @Test
@@ -260,7 +363,7 @@ class UserServiceTest {
             .thenReturn(userPage);
 
         // When
-        PageResponse<UserResponse> result = userService.getUserList(1, 10, null, null, null);
+        PageResponse<UserResponse> result = userService.getUserList(1, 10, null, null, null, CountStrategy.EXACT);
 
         // Then
         assertNotNull(result);
@@ -268,22 +371,143 @@ class UserServiceTest {
         assertEquals(1, result.getContent().size());
     }
 
+    @Test
+    void getUserList_SearchTooShort() {
+        // Given
+        ReflectionTestUtils.setField(userService, "searchMinLength", 3);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> userService.getUserList(1, 10, " ab ", null, null, CountStrategy.EXACT));
+        assertEquals("SEARCH_TOO_SHORT", exception.getCode());
+        verify(userMapper, never()).findUsersWithPagination(any(Page.class), any(), any(), any());
+    }
+
+    @Test
+    void getUserList_TrimsSearchAndCountsWithFilterQuery() {
+        // Given
+        ReflectionTestUtils.setField(userService, "searchMinLength", 3);
+        when(userMapper.findUsersWithPagination(any(Page.class), eq("test"), isNull(), isNull()))
+            .thenReturn(new Page<>(1, 10));
+
+        // When
+        userService.getUserList(1, 10, " test ", null, null, CountStrategy.EXACT);
+
+        // Then
+        ArgumentCaptor<Page> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        verify(userMapper).findUsersWithPagination(pageCaptor.capture(), eq("test"), isNull(), isNull());
+        assertEquals("countUsers", pageCaptor.getValue().countId());
+    }
+
+    @Test
+    void getUserList_EstimatedCountSkipsPaginationCount() {
+        // Given
+        when(userCountService.count(CountStrategy.ESTIMATED, null, null, null))
+            .thenReturn(new UserCountService.Count(1200000L, CountStrategy.ESTIMATED));
+        Page<User> userPage = new Page<>(1, 10, false);
+        userPage.setRecords(Arrays.asList(testUser));
+        when(userMapper.findUsersWithPagination(any(Page.class), any(), any(), any())).thenReturn(userPage);
+
+        // When
+        PageResponse<UserResponse> result = userService.getUserList(1, 10, null, null, null, CountStrategy.ESTIMATED);
+
+        // Then
+        ArgumentCaptor<Page> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        verify(userMapper).findUsersWithPagination(pageCaptor.capture(), any(), any(), any());
+        assertFalse(pageCaptor.getValue().searchCount());
+        assertEquals(1200000L, result.getTotalElements());
+        assertEquals(CountStrategy.ESTIMATED, result.getCountStrategy());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    void getUserList_SearchPageHasNoCursor() {
+        // Given
+        ReflectionTestUtils.setField(userService, "searchMinLength", 3);
+        when(userCountService.count(CountStrategy.ESTIMATED, "test", null, null))
+            .thenReturn(new UserCountService.Count(100L, CountStrategy.ESTIMATED));
+        Page<User> userPage = new Page<>(1, 10, false);
+        userPage.setRecords(Arrays.asList(testUser));
+        when(userMapper.findUsersWithPagination(any(Page.class), eq("test"), any(), any())).thenReturn(userPage);
+
+        // When
+        PageResponse<UserResponse> result = userService.getUserList(1, 10, "test", null, null, CountStrategy.ESTIMATED);
+
+        // Then
+        assertTrue(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getUserListByCursor_ReturnsNextCursorWithoutCount() {
+        // Given
+        User secondUser = new User();
+        secondUser.setId(2L);
+        secondUser.setUsername("seconduser");
+        secondUser.setCreatedAt(testUser.getCreatedAt().minusSeconds(1));
+        when(userMapper.findUsersAfterCursor(isNull(), isNull(), isNull(), isNull(), isNull(), eq(2)))
+            .thenReturn(Arrays.asList(testUser, secondUser));
+        when(userCountService.count(CountStrategy.NONE, null, null, null))
+            .thenReturn(new UserCountService.Count(PageResponse.TOTAL_UNKNOWN, CountStrategy.NONE));
+
+        // When
+        PageResponse<UserResponse> result = userService.getUserListByCursor(null, 1, null, null, null, CountStrategy.NONE);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.isHasNext());
+        assertFalse(result.isHasPrevious());
+        assertEquals(PageResponse.TOTAL_UNKNOWN, result.getTotalElements());
+        assertEquals(CountStrategy.NONE, result.getCountStrategy());
+        PageCursor next = PageCursor.decode(result.getNextCursor());
+        assertEquals(testUser.getCreatedAt(), next.getCreatedAt());
+        assertEquals(1L, next.getId());
+        verify(userMapper, never()).countUsers(any(), any(), any());
+    }
+
+    @Test
+    void getUserListByCursor_ContinuesAfterCursor() {
+        // Given
+        String cursor = new PageCursor(testUser.getCreatedAt(), 5L).encode();
+        when(userMapper.findUsersAfterCursor(null, 1, null, testUser.getCreatedAt(), 5L, 11))
+            .thenReturn(Collections.singletonList(testUser));
+        when(userCountService.count(CountStrategy.CACHED, null, 1, null))
+            .thenReturn(new UserCountService.Count(6L, CountStrategy.CACHED));
+
+        // When
+        PageResponse<UserResponse> result = userService.getUserListByCursor(cursor, 10, null, 1, null, CountStrategy.CACHED);
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertTrue(result.isHasPrevious());
+        assertNull(result.getNextCursor());
+        assertEquals(6L, result.getTotalElements());
+        assertEquals(CountStrategy.CACHED, result.getCountStrategy());
+    }
+
+    @Test
+    void getUserListByCursor_InvalidCursor() {
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> userService.getUserListByCursor("not-a-cursor", 10, null, null, null, CountStrategy.EXACT));
+        assertEquals("INVALID_CURSOR", exception.getCode());
+        verify(userMapper, never()).findUsersAfterCursor(any(), any(), any(), any(), any(), anyInt());
+    }
+
     @Test
     void getUserStatistics_Success() {
         // Given
-        when(userMapper.getTotalCount()).thenReturn(100L);
-        when(userMapper.getEnabledUserCount()).thenReturn(80L);
-        when(userMapper.getDisabledUserCount()).thenReturn(20L);
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalUsers", 100L);
+        when(userStatisticsService.getStatistics()).thenReturn(statistics);
 
         // When
         Map<String, Object> result = userService.getUserStatistics();
 
         // Then
-        assertNotNull(result);
         assertEquals(100L, result.get("totalUsers"));
-        assertEquals(80L, result.get("enabledUsers"));
-        assertEquals(20L, result.get("disabledUsers"));
-        assertEquals(80.0, result.get("enabledPercentage"));
+        verify(userMapper, never()).getTotalCount();
     }
 
     @Test
@@ -310,6 +534,19 @@ class UserServiceTest {
         assertFalse(result);
     }
 
+    @Test
+    void isUsernameAvailable_FreeInFilterSkipsDatabase() {
+        // Given
+        when(userAvailabilityFilter.isUsernameFree("newuser")).thenReturn(true);
+
+        // When
+        boolean result = userService.isUsernameAvailable("newuser", 1L);
+
+        // Then
+        assertTrue(result);
+        verifyNoInteractions(userMapper);
+    }
+
     @Test
     void isEmailAvailable_Available() {
         // Given
@@ -346,16 +583,83 @@ class UserServiceTest {
         assertEquals("请使用修改密码功能修改自己的密码", exception.getMessage());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportUsers_WritesCsvFromCursor() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(userService, "searchMinLength", 3);
+        User quoted = userWithStatus(2L, 0);
+        quoted.setUsername("smith, \"js\"");
+        quoted.setEmail("js@example.com");
+        quoted.setRoles(Collections.emptyList());
+        Cursor<User> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(Arrays.asList(testUser, quoted).iterator());
+        when(userMapper.streamUsers("test", null, 1L)).thenReturn(cursor);
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        userService.exportUsers(UserFileFormat.CSV, " test ", null, 1L).writeTo(output);
+
+        // Then
+        String[] lines = output.toString("UTF-8").split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,username,email,status,roles,role_names,created_at,updated_at,last_login_at", lines[0]);
+        assertTrue(lines[1].startsWith("1,testuser,test@example.com,1,1,USER,"));
+        assertEquals("2,\"smith, \"\"js\"\"\",js@example.com,0,,,,,", lines[2]);
+        verify(cursor).close();
+    }
+
+    @Test
+    void exportUsers_ValidatesSearchBeforeStreaming() {
+        // Given
+        ReflectionTestUtils.setField(userService, "searchMinLength", 3);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> userService.exportUsers(UserFileFormat.NDJSON, "ab", null, null));
+        assertEquals("SEARCH_TOO_SHORT", exception.getCode());
+        verifyNoInteractions(userMapper);
+    }
+
     @Test
     void batchUpdateUserStatus_Success() {
         // Given
-        List<Long> userIds = Arrays.asList(2L, 3L);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 1000);
+        List<Long> userIds = Arrays.asList(2L, 3L, 4L, 2L);
+        when(userMapper.findStatusesForUpdate(Arrays.asList(2L, 3L, 4L)))
+            .thenReturn(Arrays.asList(userWithStatus(2L, 1), userWithStatus(3L, 0)));
 
         // When
-        userService.batchUpdateUserStatus(userIds, 0, 1L);
+        BatchUpdateResult result = userService.batchUpdateUserStatus(userIds, 0, 1L);
 
         // Then
-        verify(userMapper, times(2)).updateStatus(any(Long.class), eq(0), any(LocalDateTime.class));
+        assertEquals(Arrays.asList(2L, 3L), result.getUpdatedIds());
+        assertEquals(Collections.singletonList(4L), result.getNotFoundIds());
+        verify(userMapper).batchUpdateStatus(eq(Arrays.asList(2L, 3L)), eq(0), any(LocalDateTime.class));
+        verify(userMapper, never()).updateStatus(any(), any(), any());
+        verify(userPrincipalCache).evict(Arrays.asList(2L, 3L));
+        verify(userStatisticsService).enabledChanged(-1L);
+    }
+
+    @Test
+    void batchUpdateUserStatus_Chunked() {
+        // Given
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
+        when(userMapper.findStatusesForUpdate(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            List<User> users = new ArrayList<>();
+            ids.forEach(id -> users.add(userWithStatus(id, 0)));
+            return users;
+        });
+
+        // When
+        BatchUpdateResult result = userService.batchUpdateUserStatus(Arrays.asList(2L, 3L, 4L, 5L, 6L), 1, 1L);
+
+        // Then
+        assertEquals(5, result.getUpdatedIds().size());
+        verify(userMapper, times(3)).findStatusesForUpdate(anyList());
+        verify(userMapper).batchUpdateStatus(eq(Collections.singletonList(6L)), eq(1), any(LocalDateTime.class));
+        verify(userStatisticsService).enabledChanged(5L);
     }
 
     @Test
@@ -368,4 +672,11 @@ class UserServiceTest {
             () -> userService.batchUpdateUserStatus(userIds, 0, 1L));
         assertEquals("不能禁用自己的账户", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    private static User userWithStatus(Long id, Integer status) {
+        User user = new User();
+        user.setId(id);
+        user.setStatus(status);
+        return user;
+    }
+}
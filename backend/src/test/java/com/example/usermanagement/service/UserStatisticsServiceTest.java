@@ -0,0 +1,191 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.DailyCount;
+import com.example.usermanagement.dto.RoleUserCount;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.mapper.RoleMapper;
+import com.example.usermanagement.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatisticsServiceTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @InjectMocks
+    private UserStatisticsService userStatisticsService;
+
+    private User newAdmin;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userStatisticsService, "registrationDays", 7);
+
+        Role adminRole = new Role();
+        adminRole.setId(2L);
+        adminRole.setName("ADMIN");
+
+        newAdmin = new User();
+        newAdmin.setId(101L);
+        newAdmin.setStatus(1);
+        newAdmin.setCreatedAt(LocalDateTime.now());
+        newAdmin.setRoles(Collections.singletonList(adminRole));
+    }
+
+    private void givenSnapshot(long total, long enabled, long users, long admins, long registeredToday) {
+        when(userMapper.getTotalCount()).thenReturn(total);
+        when(userMapper.getEnabledUserCount()).thenReturn(enabled);
+        when(roleMapper.countUsersByRole()).thenReturn(Arrays.asList(
+            new RoleUserCount(1L, "USER", users), new RoleUserCount(2L, "ADMIN", admins)));
+        when(userMapper.countRegistrationsSince(any(LocalDateTime.class))).thenReturn(
+            Collections.singletonList(new DailyCount(LocalDate.now(), registeredToday)));
+    }
+
+    @Test
+    void getStatistics_LoadsSnapshotOnce() {
+        // Given
+        givenSnapshot(100L, 80L, 90L, 10L, 3L);
+
+        // When
+        userStatisticsService.getStatistics();
+        Map<String, Object> result = userStatisticsService.getStatistics();
+
+        // Then
+        assertEquals(100L, result.get("totalUsers"));
+        assertEquals(80L, result.get("enabledUsers"));
+        assertEquals(20L, result.get("disabledUsers"));
+        assertEquals(80.0, result.get("enabledPercentage"));
+        assertEquals(10L, roleCount(result, "ADMIN"));
+        List<DailyCount> registrations = registrations(result);
+        assertEquals(7, registrations.size());
+        assertEquals(LocalDate.now(), registrations.get(6).getDate());
+        assertEquals(3L, registrations.get(6).getCount());
+        assertEquals(0L, registrations.get(0).getCount());
+        verify(userMapper, times(1)).getTotalCount();
+    }
+
+    @Test
+    void getStatistics_AppliesDeltasWithoutQuerying() {
+        // Given
+        givenSnapshot(100L, 80L, 90L, 10L, 3L);
+        userStatisticsService.getStatistics();
+
+        // When
+        userStatisticsService.userCreated(newAdmin);
+        userStatisticsService.statusChanged(1, 0);
+        userStatisticsService.rolesChanged(Collections.singletonList(1L), Collections.singletonList(2L));
+        Map<String, Object> result = userStatisticsService.getStatistics();
+
+        // Then
+        assertEquals(101L, result.get("totalUsers"));
+        assertEquals(80L, result.get("enabledUsers"));
+        assertEquals(89L, roleCount(result, "USER"));
+        assertEquals(12L, roleCount(result, "ADMIN"));
+        assertEquals(4L, registrations(result).get(6).getCount());
+        verify(userMapper, times(1)).getTotalCount();
+    }
+
+    @Test
+    void reconcile_DoesNotCountDeltasAlreadyInSnapshotTwice() {
+        // Given
+        userStatisticsService.userCreated(newAdmin);
+        userStatisticsService.userDeleted(newAdmin, Collections.singletonList(2L));
+        userStatisticsService.userCreated(newAdmin);
+        givenSnapshot(101L, 81L, 90L, 11L, 4L);
+
+        // When
+        Map<String, Object> loaded = userStatisticsService.getStatistics();
+        userStatisticsService.reconcile();
+        Map<String, Object> reconciled = userStatisticsService.getStatistics();
+
+        // Then
+        assertEquals(101L, loaded.get("totalUsers"));
+        assertEquals(11L, roleCount(loaded, "ADMIN"));
+        assertEquals(4L, registrations(loaded).get(6).getCount());
+        assertEquals(101L, reconciled.get("totalUsers"));
+        verify(userMapper, times(2)).getTotalCount();
+    }
+
+    @Test
+    void reconcile_SkipsWhenNeverRead() {
+        // When
+        userStatisticsService.reconcile();
+
+        // Then
+        verifyNoInteractions(userMapper, roleMapper);
+    }
+
+    @Test
+    void markStale_ReloadsOnNextRead() {
+        // Given
+        givenSnapshot(100L, 80L, 90L, 10L, 3L);
+        userStatisticsService.getStatistics();
+
+        // When
+        userStatisticsService.markStale();
+        userStatisticsService.getStatistics();
+
+        // Then
+        verify(userMapper, times(2)).getTotalCount();
+    }
+
+    @Test
+    void userCreated_AppliedOnlyAfterCommit() {
+        // Given
+        givenSnapshot(100L, 80L, 90L, 10L, 3L);
+        userStatisticsService.getStatistics();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            userStatisticsService.userCreated(newAdmin);
+
+            // Then
+            assertEquals(100L, userStatisticsService.getStatistics().get("totalUsers"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            assertEquals(101L, userStatisticsService.getStatistics().get("totalUsers"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long roleCount(Map<String, Object> statistics, String roleName) {
+        return ((List<RoleUserCount>) statistics.get("usersByRole")).stream()
+            .filter(roleUserCount -> roleUserCount.getRoleName().equals(roleName))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new)
+            .getUserCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<DailyCount> registrations(Map<String, Object> statistics) {
+        return (List<DailyCount>) statistics.get("registrationsPerDay");
+    }
+}
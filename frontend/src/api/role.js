@@ -2,11 +2,13 @@ import request from '@/utils/request'
 
 /**
  * 获取所有角色列表
+ * @param {Object} params - 查询参数，withUsage为true时附带用户数和是否可删除
  */
-export function getRoleList() {
+export function getRoleList(params) {
   return request({
     url: '/roles',
-    method: 'get'
+    method: 'get',
+    params
   })
 }
 
@@ -54,11 +56,13 @@ export function deleteRole(id) {
 
 /**
  * 批量删除角色
+ * partial为true时删除可删除的角色，正在使用的角色在结果中列出
  */
-export function batchDeleteRoles(data) {
+export function batchDeleteRoles(data, partial = false) {
   return request({
     url: '/roles/batch',
     method: 'delete',
+    params: { partial },
     data
   })
 }
@@ -84,6 +88,28 @@ export function addRoleToUser(userId, roleId) {
   })
 }
 
+/**
+ * 批量为用户添加角色，返回每个用户的处理结果
+ */
+export function addUsersToRole(roleId, userIds) {
+  return request({
+    url: `/roles/${roleId}/members`,
+    method: 'post',
+    data: { userIds }
+  })
+}
+
+/**
+ * 批量移除用户的角色，返回每个用户的处理结果
+ */
+export function removeUsersFromRole(roleId, userIds) {
+  return request({
+    url: `/roles/${roleId}/members`,
+    method: 'delete',
+    data: { userIds }
+  })
+}
+
 /**
  * 移除用户角色
  */
@@ -114,6 +140,17 @@ export function getUserIdsByRole(roleId) {
   })
 }
 
+/**
+ * 按游标分页获取拥有特定角色的用户摘要
+ */
+export function getRoleMembers(roleId, params) {
+  return request({
+    url: `/roles/${roleId}/members`,
+    method: 'get',
+    params
+  })
+}
+
 /**
  * 检查角色是否可以删除
  */
@@ -32,6 +32,18 @@ export function getUserById(id) {
   })
 }
 
+/**
+ * 按ID批量获取用户详情
+ * @param {Array} ids - 用户ID列表
+ */
+export function lookupUsers(ids) {
+  return request({
+    url: '/users/lookup',
+    method: 'post',
+    data: { ids }
+  })
+}
+
 /**
  * 更新用户状态
  */